@@ -0,0 +1,125 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared setup for the benchmarks.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class Beans
+{
+	/** Number of actual arguments cycled through while matching. */
+	static final int ACTUALS = 1024;
+
+	/** Seed of the expected values. */
+	static final int EXPECTED_SEED = 0;
+
+	/** Seed of the arguments that do not match. */
+	static final int MISMATCH_SEED = 1;
+
+	/**
+	 * Disables object creation.
+	 */
+	private Beans()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * Gets the names of the properties of the given kind to match on.
+	 * 
+	 * @param valueKind
+	 *        <code>primitive</code> for the <code>int</code> properties,
+	 *        <code>object</code> for the <code>String</code> properties.
+	 * @param count
+	 * @return the property names.
+	 */
+	static List<String> propertyNames(final String valueKind, final int count)
+	{
+		final String prefix = "primitive".equals(valueKind) ? "int" : "string";
+		final List<String> names = new ArrayList<String>();
+
+		for(int i = 0; i < count; i++)
+		{
+			names.add(prefix + i);
+		}
+
+		return names;
+	}
+
+	/**
+	 * Gets the names of all properties of {@link WideBean} not in the given
+	 * list.
+	 * 
+	 * @param kept
+	 * @return the property names.
+	 */
+	static String[] otherPropertyNames(final List<String> kept)
+	{
+		final List<String> others = new ArrayList<String>();
+
+		for(int i = 0; i < WideBean.SIZE / 2; i++)
+		{
+			for(final String name : new String[] {"int" + i, "string" + i})
+			{
+				if(!kept.contains(name))
+				{
+					others.add(name);
+				}
+			}
+		}
+
+		return others.toArray(new String[others.size()]);
+	}
+
+	/**
+	 * Gets the expected values of the named properties.
+	 * 
+	 * @param names
+	 * @return map of property names to expected values.
+	 */
+	static Map<String, Object> expectedValues(final List<String> names)
+	{
+		final Map<String, Object> values = new HashMap<String, Object>();
+
+		for(final String name : names)
+		{
+			final int index = Integer.parseInt(name.replaceAll("\\D", ""));
+			values.put(name, name.startsWith("int") ? (Object) Integer.valueOf(EXPECTED_SEED + index) : "value-" + (EXPECTED_SEED + index));
+		}
+
+		return values;
+	}
+
+	/**
+	 * Decides which of the cycled arguments should fail to match, spreading the
+	 * mismatches evenly.
+	 * 
+	 * @param index
+	 * @param mismatchPercent
+	 * @return whether the argument at the index should not match.
+	 */
+	static boolean isMismatch(final int index, final int mismatchPercent)
+	{
+		return index * mismatchPercent / 100 != (index + 1) * mismatchPercent / 100;
+	}
+}
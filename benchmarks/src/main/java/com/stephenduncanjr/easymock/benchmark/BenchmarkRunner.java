@@ -0,0 +1,62 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line, always adding the GC
+ * profiler so allocation rates are reported alongside timings.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class BenchmarkRunner
+{
+	/**
+	 * Disables object creation.
+	 */
+	private BenchmarkRunner()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * @param args
+	 *        JMH command line arguments.
+	 * @throws CommandLineOptionException
+	 * @throws IOException
+	 * @throws RunnerException
+	 */
+	public static void main(final String[] args) throws CommandLineOptionException, IOException, RunnerException
+	{
+		final CommandLineOptions options = new CommandLineOptions(args);
+
+		if(options.shouldHelp() || options.shouldList() || options.shouldListProfilers() || options.shouldListResultFormats())
+		{
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+	}
+}
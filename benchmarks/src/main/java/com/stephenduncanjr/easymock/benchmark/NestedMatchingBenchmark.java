@@ -0,0 +1,104 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenduncanjr.easymock.matcher.BeanProperty;
+
+/**
+ * Measures {@link BeanProperty#matches(Object)} for nested property paths
+ * such as <code>child.child.value</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NestedMatchingBenchmark
+{
+	/** Number of <code>child</code> hops before the compared property. */
+	@Param({"0", "1", "3", "7"})
+	private int depth;
+
+	/** Percentage of arguments that do not match. */
+	@Param({"0", "50", "100"})
+	private int mismatchPercent;
+
+	/** Whether the compared property is <code>int</code> or <code>String</code>. */
+	@Param({"primitive", "object"})
+	private String valueKind;
+
+	/** Arguments to match. */
+	private Node[] actuals;
+
+	/** Index of the next argument. */
+	private int index;
+
+	/** The matcher. */
+	private BeanProperty matcher;
+
+	/**
+	 * Builds the matcher and arguments.
+	 */
+	@Setup
+	public void setUp()
+	{
+		final StringBuilder path = new StringBuilder();
+
+		for(int i = 0; i < this.depth; i++)
+		{
+			path.append("child.");
+		}
+
+		final boolean primitive = "primitive".equals(this.valueKind);
+		path.append(primitive ? "count" : "value");
+
+		final Node expected = new Node(0, Beans.EXPECTED_SEED);
+		this.matcher = new BeanProperty(path.toString(), primitive ? (Object) Integer.valueOf(expected.getCount()) : expected.getValue());
+		this.actuals = new Node[Beans.ACTUALS];
+
+		for(int i = 0; i < this.actuals.length; i++)
+		{
+			this.actuals[i] = new Node(this.depth, Beans.isMismatch(i, this.mismatchPercent) ? Beans.MISMATCH_SEED : Beans.EXPECTED_SEED);
+		}
+	}
+
+	/**
+	 * @return whether the next argument matched.
+	 */
+	@Benchmark
+	public boolean matches()
+	{
+		this.index = (this.index + 1) & (Beans.ACTUALS - 1);
+		return this.matcher.matches(this.actuals[this.index]);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+/**
+ * Linked bean for nested property paths such as
+ * <code>child.child.value</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class Node
+{
+	/** Child node. */
+	private final Node child;
+
+	/** Integer value. */
+	private final int count;
+
+	/** String value. */
+	private final String value;
+
+	/**
+	 * Creates a chain of nodes of the given depth below this one.
+	 * 
+	 * @param depth
+	 * @param seed
+	 */
+	public Node(final int depth, final int seed)
+	{
+		this.child = depth == 0 ? null : new Node(depth - 1, seed);
+		this.count = seed;
+		this.value = "value-" + seed;
+	}
+
+	/**
+	 * @return Value of property child.
+	 */
+	public Node getChild()
+	{
+		return this.child;
+	}
+
+	/**
+	 * @return Value of property count.
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * @return Value of property value.
+	 */
+	public String getValue()
+	{
+		return this.value;
+	}
+}
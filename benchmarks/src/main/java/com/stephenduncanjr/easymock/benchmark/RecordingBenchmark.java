@@ -0,0 +1,135 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propEq;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.IArgumentMatcher;
+import org.easymock.internal.LastControl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of recording <code>propEq</code> expectations. Each
+ * benchmark pulls the reported matcher back off EasyMock's matcher stack so
+ * that nothing accumulates between invocations.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordingBenchmark
+{
+	/** Number of properties recorded. */
+	@Param({"1", "4", "16", "32"})
+	private int propertyCount;
+
+	/** Whether the recorded properties are <code>int</code> or <code>String</code>. */
+	@Param({"primitive", "object"})
+	private String valueKind;
+
+	/** Properties left out of the whole-object expectation. */
+	private String[] ignored;
+
+	/** Expected values by property name. */
+	private Map<String, Object> properties;
+
+	/** Name of the property for single-property expectations. */
+	private String singleName;
+
+	/** Value of the property for single-property expectations. */
+	private Object singleValue;
+
+	/** Object to capture expected values from. */
+	private WideBean template;
+
+	/**
+	 * Builds the expectation inputs.
+	 */
+	@Setup
+	public void setUp()
+	{
+		final List<String> names = Beans.propertyNames(this.valueKind, this.propertyCount);
+
+		this.properties = Beans.expectedValues(names);
+		this.ignored = Beans.otherPropertyNames(names);
+		this.singleName = names.get(0);
+		this.singleValue = this.properties.get(this.singleName);
+		this.template = new WideBean(Beans.EXPECTED_SEED);
+	}
+
+	/**
+	 * @return the reported matchers.
+	 */
+	@Benchmark
+	public List<IArgumentMatcher> recordMap()
+	{
+		propEq(WideBean.class, this.properties);
+		return LastControl.pullMatchers();
+	}
+
+	/**
+	 * @return the reported matchers.
+	 */
+	@Benchmark
+	public List<IArgumentMatcher> recordSingleProperty()
+	{
+		propEq(WideBean.class, this.singleName, this.singleValue);
+		return LastControl.pullMatchers();
+	}
+
+	/**
+	 * Captures every property of the template, independent of the property
+	 * count.
+	 * 
+	 * @return the reported matchers.
+	 */
+	@Benchmark
+	public List<IArgumentMatcher> recordObject()
+	{
+		propEq(this.template);
+		return LastControl.pullMatchers();
+	}
+
+	/**
+	 * Captures the template, ignoring all but the measured properties.
+	 * 
+	 * @return the reported matchers.
+	 */
+	@Benchmark
+	public List<IArgumentMatcher> recordObjectWithIgnores()
+	{
+		propEq(this.template, this.ignored);
+		return LastControl.pullMatchers();
+	}
+}
@@ -0,0 +1,806 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.benchmark;
+
+/**
+ * Bean with {@value #SIZE} properties, alternating between <code>int</code>
+ * properties named <code>intN</code> and <code>String</code> properties named
+ * <code>stringN</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class WideBean
+{
+	/** Number of properties. */
+	public static final int SIZE = 64;
+
+	/** Integer value 0. */
+	private int int0;
+
+	/** String value 0. */
+	private String string0;
+
+	/** Integer value 1. */
+	private int int1;
+
+	/** String value 1. */
+	private String string1;
+
+	/** Integer value 2. */
+	private int int2;
+
+	/** String value 2. */
+	private String string2;
+
+	/** Integer value 3. */
+	private int int3;
+
+	/** String value 3. */
+	private String string3;
+
+	/** Integer value 4. */
+	private int int4;
+
+	/** String value 4. */
+	private String string4;
+
+	/** Integer value 5. */
+	private int int5;
+
+	/** String value 5. */
+	private String string5;
+
+	/** Integer value 6. */
+	private int int6;
+
+	/** String value 6. */
+	private String string6;
+
+	/** Integer value 7. */
+	private int int7;
+
+	/** String value 7. */
+	private String string7;
+
+	/** Integer value 8. */
+	private int int8;
+
+	/** String value 8. */
+	private String string8;
+
+	/** Integer value 9. */
+	private int int9;
+
+	/** String value 9. */
+	private String string9;
+
+	/** Integer value 10. */
+	private int int10;
+
+	/** String value 10. */
+	private String string10;
+
+	/** Integer value 11. */
+	private int int11;
+
+	/** String value 11. */
+	private String string11;
+
+	/** Integer value 12. */
+	private int int12;
+
+	/** String value 12. */
+	private String string12;
+
+	/** Integer value 13. */
+	private int int13;
+
+	/** String value 13. */
+	private String string13;
+
+	/** Integer value 14. */
+	private int int14;
+
+	/** String value 14. */
+	private String string14;
+
+	/** Integer value 15. */
+	private int int15;
+
+	/** String value 15. */
+	private String string15;
+
+	/** Integer value 16. */
+	private int int16;
+
+	/** String value 16. */
+	private String string16;
+
+	/** Integer value 17. */
+	private int int17;
+
+	/** String value 17. */
+	private String string17;
+
+	/** Integer value 18. */
+	private int int18;
+
+	/** String value 18. */
+	private String string18;
+
+	/** Integer value 19. */
+	private int int19;
+
+	/** String value 19. */
+	private String string19;
+
+	/** Integer value 20. */
+	private int int20;
+
+	/** String value 20. */
+	private String string20;
+
+	/** Integer value 21. */
+	private int int21;
+
+	/** String value 21. */
+	private String string21;
+
+	/** Integer value 22. */
+	private int int22;
+
+	/** String value 22. */
+	private String string22;
+
+	/** Integer value 23. */
+	private int int23;
+
+	/** String value 23. */
+	private String string23;
+
+	/** Integer value 24. */
+	private int int24;
+
+	/** String value 24. */
+	private String string24;
+
+	/** Integer value 25. */
+	private int int25;
+
+	/** String value 25. */
+	private String string25;
+
+	/** Integer value 26. */
+	private int int26;
+
+	/** String value 26. */
+	private String string26;
+
+	/** Integer value 27. */
+	private int int27;
+
+	/** String value 27. */
+	private String string27;
+
+	/** Integer value 28. */
+	private int int28;
+
+	/** String value 28. */
+	private String string28;
+
+	/** Integer value 29. */
+	private int int29;
+
+	/** String value 29. */
+	private String string29;
+
+	/** Integer value 30. */
+	private int int30;
+
+	/** String value 30. */
+	private String string30;
+
+	/** Integer value 31. */
+	private int int31;
+
+	/** String value 31. */
+	private String string31;
+
+	/**
+	 * Creates a bean with every property derived from the given seed.
+	 * 
+	 * @param seed
+	 */
+	public WideBean(final int seed)
+	{
+		this.int0 = seed + 0;
+		this.string0 = "value-" + (seed + 0);
+		this.int1 = seed + 1;
+		this.string1 = "value-" + (seed + 1);
+		this.int2 = seed + 2;
+		this.string2 = "value-" + (seed + 2);
+		this.int3 = seed + 3;
+		this.string3 = "value-" + (seed + 3);
+		this.int4 = seed + 4;
+		this.string4 = "value-" + (seed + 4);
+		this.int5 = seed + 5;
+		this.string5 = "value-" + (seed + 5);
+		this.int6 = seed + 6;
+		this.string6 = "value-" + (seed + 6);
+		this.int7 = seed + 7;
+		this.string7 = "value-" + (seed + 7);
+		this.int8 = seed + 8;
+		this.string8 = "value-" + (seed + 8);
+		this.int9 = seed + 9;
+		this.string9 = "value-" + (seed + 9);
+		this.int10 = seed + 10;
+		this.string10 = "value-" + (seed + 10);
+		this.int11 = seed + 11;
+		this.string11 = "value-" + (seed + 11);
+		this.int12 = seed + 12;
+		this.string12 = "value-" + (seed + 12);
+		this.int13 = seed + 13;
+		this.string13 = "value-" + (seed + 13);
+		this.int14 = seed + 14;
+		this.string14 = "value-" + (seed + 14);
+		this.int15 = seed + 15;
+		this.string15 = "value-" + (seed + 15);
+		this.int16 = seed + 16;
+		this.string16 = "value-" + (seed + 16);
+		this.int17 = seed + 17;
+		this.string17 = "value-" + (seed + 17);
+		this.int18 = seed + 18;
+		this.string18 = "value-" + (seed + 18);
+		this.int19 = seed + 19;
+		this.string19 = "value-" + (seed + 19);
+		this.int20 = seed + 20;
+		this.string20 = "value-" + (seed + 20);
+		this.int21 = seed + 21;
+		this.string21 = "value-" + (seed + 21);
+		this.int22 = seed + 22;
+		this.string22 = "value-" + (seed + 22);
+		this.int23 = seed + 23;
+		this.string23 = "value-" + (seed + 23);
+		this.int24 = seed + 24;
+		this.string24 = "value-" + (seed + 24);
+		this.int25 = seed + 25;
+		this.string25 = "value-" + (seed + 25);
+		this.int26 = seed + 26;
+		this.string26 = "value-" + (seed + 26);
+		this.int27 = seed + 27;
+		this.string27 = "value-" + (seed + 27);
+		this.int28 = seed + 28;
+		this.string28 = "value-" + (seed + 28);
+		this.int29 = seed + 29;
+		this.string29 = "value-" + (seed + 29);
+		this.int30 = seed + 30;
+		this.string30 = "value-" + (seed + 30);
+		this.int31 = seed + 31;
+		this.string31 = "value-" + (seed + 31);
+	}
+
+	/**
+	 * @return Value of property int0.
+	 */
+	public int getInt0()
+	{
+		return this.int0;
+	}
+
+	/**
+	 * @return Value of property string0.
+	 */
+	public String getString0()
+	{
+		return this.string0;
+	}
+
+	/**
+	 * @return Value of property int1.
+	 */
+	public int getInt1()
+	{
+		return this.int1;
+	}
+
+	/**
+	 * @return Value of property string1.
+	 */
+	public String getString1()
+	{
+		return this.string1;
+	}
+
+	/**
+	 * @return Value of property int2.
+	 */
+	public int getInt2()
+	{
+		return this.int2;
+	}
+
+	/**
+	 * @return Value of property string2.
+	 */
+	public String getString2()
+	{
+		return this.string2;
+	}
+
+	/**
+	 * @return Value of property int3.
+	 */
+	public int getInt3()
+	{
+		return this.int3;
+	}
+
+	/**
+	 * @return Value of property string3.
+	 */
+	public String getString3()
+	{
+		return this.string3;
+	}
+
+	/**
+	 * @return Value of property int4.
+	 */
+	public int getInt4()
+	{
+		return this.int4;
+	}
+
+	/**
+	 * @return Value of property string4.
+	 */
+	public String getString4()
+	{
+		return this.string4;
+	}
+
+	/**
+	 * @return Value of property int5.
+	 */
+	public int getInt5()
+	{
+		return this.int5;
+	}
+
+	/**
+	 * @return Value of property string5.
+	 */
+	public String getString5()
+	{
+		return this.string5;
+	}
+
+	/**
+	 * @return Value of property int6.
+	 */
+	public int getInt6()
+	{
+		return this.int6;
+	}
+
+	/**
+	 * @return Value of property string6.
+	 */
+	public String getString6()
+	{
+		return this.string6;
+	}
+
+	/**
+	 * @return Value of property int7.
+	 */
+	public int getInt7()
+	{
+		return this.int7;
+	}
+
+	/**
+	 * @return Value of property string7.
+	 */
+	public String getString7()
+	{
+		return this.string7;
+	}
+
+	/**
+	 * @return Value of property int8.
+	 */
+	public int getInt8()
+	{
+		return this.int8;
+	}
+
+	/**
+	 * @return Value of property string8.
+	 */
+	public String getString8()
+	{
+		return this.string8;
+	}
+
+	/**
+	 * @return Value of property int9.
+	 */
+	public int getInt9()
+	{
+		return this.int9;
+	}
+
+	/**
+	 * @return Value of property string9.
+	 */
+	public String getString9()
+	{
+		return this.string9;
+	}
+
+	/**
+	 * @return Value of property int10.
+	 */
+	public int getInt10()
+	{
+		return this.int10;
+	}
+
+	/**
+	 * @return Value of property string10.
+	 */
+	public String getString10()
+	{
+		return this.string10;
+	}
+
+	/**
+	 * @return Value of property int11.
+	 */
+	public int getInt11()
+	{
+		return this.int11;
+	}
+
+	/**
+	 * @return Value of property string11.
+	 */
+	public String getString11()
+	{
+		return this.string11;
+	}
+
+	/**
+	 * @return Value of property int12.
+	 */
+	public int getInt12()
+	{
+		return this.int12;
+	}
+
+	/**
+	 * @return Value of property string12.
+	 */
+	public String getString12()
+	{
+		return this.string12;
+	}
+
+	/**
+	 * @return Value of property int13.
+	 */
+	public int getInt13()
+	{
+		return this.int13;
+	}
+
+	/**
+	 * @return Value of property string13.
+	 */
+	public String getString13()
+	{
+		return this.string13;
+	}
+
+	/**
+	 * @return Value of property int14.
+	 */
+	public int getInt14()
+	{
+		return this.int14;
+	}
+
+	/**
+	 * @return Value of property string14.
+	 */
+	public String getString14()
+	{
+		return this.string14;
+	}
+
+	/**
+	 * @return Value of property int15.
+	 */
+	public int getInt15()
+	{
+		return this.int15;
+	}
+
+	/**
+	 * @return Value of property string15.
+	 */
+	public String getString15()
+	{
+		return this.string15;
+	}
+
+	/**
+	 * @return Value of property int16.
+	 */
+	public int getInt16()
+	{
+		return this.int16;
+	}
+
+	/**
+	 * @return Value of property string16.
+	 */
+	public String getString16()
+	{
+		return this.string16;
+	}
+
+	/**
+	 * @return Value of property int17.
+	 */
+	public int getInt17()
+	{
+		return this.int17;
+	}
+
+	/**
+	 * @return Value of property string17.
+	 */
+	public String getString17()
+	{
+		return this.string17;
+	}
+
+	/**
+	 * @return Value of property int18.
+	 */
+	public int getInt18()
+	{
+		return this.int18;
+	}
+
+	/**
+	 * @return Value of property string18.
+	 */
+	public String getString18()
+	{
+		return this.string18;
+	}
+
+	/**
+	 * @return Value of property int19.
+	 */
+	public int getInt19()
+	{
+		return this.int19;
+	}
+
+	/**
+	 * @return Value of property string19.
+	 */
+	public String getString19()
+	{
+		return this.string19;
+	}
+
+	/**
+	 * @return Value of property int20.
+	 */
+	public int getInt20()
+	{
+		return this.int20;
+	}
+
+	/**
+	 * @return Value of property string20.
+	 */
+	public String getString20()
+	{
+		return this.string20;
+	}
+
+	/**
+	 * @return Value of property int21.
+	 */
+	public int getInt21()
+	{
+		return this.int21;
+	}
+
+	/**
+	 * @return Value of property string21.
+	 */
+	public String getString21()
+	{
+		return this.string21;
+	}
+
+	/**
+	 * @return Value of property int22.
+	 */
+	public int getInt22()
+	{
+		return this.int22;
+	}
+
+	/**
+	 * @return Value of property string22.
+	 */
+	public String getString22()
+	{
+		return this.string22;
+	}
+
+	/**
+	 * @return Value of property int23.
+	 */
+	public int getInt23()
+	{
+		return this.int23;
+	}
+
+	/**
+	 * @return Value of property string23.
+	 */
+	public String getString23()
+	{
+		return this.string23;
+	}
+
+	/**
+	 * @return Value of property int24.
+	 */
+	public int getInt24()
+	{
+		return this.int24;
+	}
+
+	/**
+	 * @return Value of property string24.
+	 */
+	public String getString24()
+	{
+		return this.string24;
+	}
+
+	/**
+	 * @return Value of property int25.
+	 */
+	public int getInt25()
+	{
+		return this.int25;
+	}
+
+	/**
+	 * @return Value of property string25.
+	 */
+	public String getString25()
+	{
+		return this.string25;
+	}
+
+	/**
+	 * @return Value of property int26.
+	 */
+	public int getInt26()
+	{
+		return this.int26;
+	}
+
+	/**
+	 * @return Value of property string26.
+	 */
+	public String getString26()
+	{
+		return this.string26;
+	}
+
+	/**
+	 * @return Value of property int27.
+	 */
+	public int getInt27()
+	{
+		return this.int27;
+	}
+
+	/**
+	 * @return Value of property string27.
+	 */
+	public String getString27()
+	{
+		return this.string27;
+	}
+
+	/**
+	 * @return Value of property int28.
+	 */
+	public int getInt28()
+	{
+		return this.int28;
+	}
+
+	/**
+	 * @return Value of property string28.
+	 */
+	public String getString28()
+	{
+		return this.string28;
+	}
+
+	/**
+	 * @return Value of property int29.
+	 */
+	public int getInt29()
+	{
+		return this.int29;
+	}
+
+	/**
+	 * @return Value of property string29.
+	 */
+	public String getString29()
+	{
+		return this.string29;
+	}
+
+	/**
+	 * @return Value of property int30.
+	 */
+	public int getInt30()
+	{
+		return this.int30;
+	}
+
+	/**
+	 * @return Value of property string30.
+	 */
+	public String getString30()
+	{
+		return this.string30;
+	}
+
+	/**
+	 * @return Value of property int31.
+	 */
+	public int getInt31()
+	{
+		return this.int31;
+	}
+
+	/**
+	 * @return Value of property string31.
+	 */
+	public String getString31()
+	{
+		return this.string31;
+	}
+}
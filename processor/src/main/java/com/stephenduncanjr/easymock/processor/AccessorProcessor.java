@@ -0,0 +1,277 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.processor;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an <code>AccessorTable</code> for each class marked with
+ * <code>@GenerateAccessors</code>, in the package of the class and named
+ * after its binary name with the suffix <code>_PropertyAccessors</code>. The
+ * table holds one accessor per readable property, found by the same rules as
+ * <code>java.beans.Introspector</code> of Java 8: public, non-static,
+ * parameterless <code>get</code> methods, and <code>is</code> methods
+ * returning <code>boolean</code>, which take precedence, declared by the
+ * class or its superclasses but not by interfaces, so default methods are
+ * left out. Each accessor calls its getter
+ * directly, so matchers need neither introspection nor reflection for the
+ * class.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+@SupportedAnnotationTypes(AccessorProcessor.ANNOTATION)
+public class AccessorProcessor extends AbstractProcessor
+{
+	/** The marker annotation. */
+	static final String ANNOTATION = "com.stephenduncanjr.easymock.matcher.GenerateAccessors";
+
+	/** Package of the runtime interfaces. */
+	private static final String MATCHER_PACKAGE = "com.stephenduncanjr.easymock.matcher.";
+
+	/** Suffix of the generated class names. */
+	private static final String SUFFIX = "_PropertyAccessors";
+
+	/**
+	 * Appends an accessor method that evaluates an expression, wrapping
+	 * everything the getter throws, errors included, as reflection would.
+	 * 
+	 * @param source
+	 * @param signature
+	 *        the return type and name.
+	 * @param expression
+	 */
+	private static void appendMethod(final StringBuilder source, final String signature, final String expression)
+	{
+		source.append("\t\t\tpublic ").append(signature).append("(final Object bean) throws java.lang.reflect.InvocationTargetException\n\t\t\t{\n");
+		source.append("\t\t\t\ttry\n\t\t\t\t{\n\t\t\t\t\treturn ").append(expression).append(";\n\t\t\t\t}\n");
+		source.append("\t\t\t\tcatch(final Throwable e)\n\t\t\t\t{\n\t\t\t\t\tthrow new java.lang.reflect.InvocationTargetException(e);\n\t\t\t\t}\n\t\t\t}\n\n");
+	}
+
+	/**
+	 * @param type
+	 * @return the wrapper class name of a primitive type.
+	 */
+	private static String wrapperOf(final TypeKind type)
+	{
+		switch(type)
+		{
+			case BOOLEAN:
+				return "Boolean";
+			case BYTE:
+				return "Byte";
+			case CHAR:
+				return "Character";
+			case DOUBLE:
+				return "Double";
+			case FLOAT:
+				return "Float";
+			case INT:
+				return "Integer";
+			case LONG:
+				return "Long";
+			default:
+				return "Short";
+		}
+	}
+
+	/**
+	 * @param type
+	 * @param value
+	 *        expression of the primitive type.
+	 * @return expression of the bits of the value, as compared by matchers.
+	 */
+	private static String toBits(final TypeKind type, final String value)
+	{
+		switch(type)
+		{
+			case BOOLEAN:
+				return "(" + value + " ? 1L : 0L)";
+			case DOUBLE:
+				return "Double.doubleToLongBits(" + value + ")";
+			case FLOAT:
+				return "Float.floatToIntBits(" + value + ")";
+			default:
+				return value;
+		}
+	}
+
+	/**
+	 * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+	 *      javax.annotation.processing.RoundEnvironment)
+	 */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+	{
+		for(final TypeElement annotation : annotations)
+		{
+			for(final Element element : roundEnv.getElementsAnnotatedWith(annotation))
+			{
+				if(element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.ENUM)
+				{
+					this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@GenerateAccessors applies to classes only", element);
+				}
+				else if(element.getModifiers().contains(Modifier.PRIVATE))
+				{
+					this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@GenerateAccessors class must not be private", element);
+				}
+				else
+				{
+					generate((TypeElement) element);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finds the read methods of the readable properties of a class.
+	 * 
+	 * @param type
+	 * @return the read methods by property name, in name order.
+	 */
+	private Map<String, ExecutableElement> readMethods(final TypeElement type)
+	{
+		final Map<String, ExecutableElement> readMethods = new TreeMap<String, ExecutableElement>();
+
+		for(final ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(type)))
+		{
+			final String name = method.getSimpleName().toString();
+			final Set<Modifier> modifiers = method.getModifiers();
+
+			if(!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || !method.getParameters().isEmpty() || method.getEnclosingElement().getKind() == ElementKind.INTERFACE)
+			{
+				continue;
+			}
+
+			final TypeKind returnType = method.getReturnType().getKind();
+
+			if(name.startsWith("is") && name.length() > 2 && returnType == TypeKind.BOOLEAN)
+			{
+				readMethods.put(Introspector.decapitalize(name.substring(2)), method);
+			}
+			else if(name.startsWith("get") && name.length() > 3 && returnType != TypeKind.VOID)
+			{
+				final String property = Introspector.decapitalize(name.substring(3));
+				final ExecutableElement existing = readMethods.get(property);
+
+				if(!"class".equals(property) && (existing == null || !existing.getSimpleName().toString().startsWith("is")))
+				{
+					readMethods.put(property, method);
+				}
+			}
+		}
+
+		return readMethods;
+	}
+
+	/**
+	 * Writes the table for a class.
+	 * 
+	 * @param type
+	 */
+	private void generate(final TypeElement type)
+	{
+		final String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		final String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+		final String simpleName = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+		final String beanName = type.getQualifiedName().toString();
+
+		final StringBuilder source = new StringBuilder();
+
+		if(packageName.length() > 0)
+		{
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+
+		source.append("/**\n * Property accessors for {@link ").append(beanName).append("}, generated by ").append(getClass().getName()).append(".\n */\n");
+		source.append("public final class ").append(simpleName).append(" implements ").append(MATCHER_PACKAGE).append("AccessorTable\n{\n");
+		source.append("\tpublic java.util.Map<String, ").append(MATCHER_PACKAGE).append("PropertyAccessor> getAccessors()\n\t{\n");
+		source.append("\t\tfinal java.util.Map<String, ").append(MATCHER_PACKAGE).append("PropertyAccessor> accessors = new java.util.TreeMap<String, ").append(MATCHER_PACKAGE).append("PropertyAccessor>();\n");
+
+		for(final Entry<String, ExecutableElement> entry : readMethods(type).entrySet())
+		{
+			final TypeKind returnType = entry.getValue().getReturnType().getKind();
+			final String call = "((" + beanName + ") bean)." + entry.getValue().getSimpleName() + "()";
+
+			source.append("\t\taccessors.put(\"").append(entry.getKey()).append("\", new ").append(MATCHER_PACKAGE);
+
+			if(returnType.isPrimitive())
+			{
+				source.append("PrimitivePropertyAccessor()\n\t\t{\n");
+				appendMethod(source, "long getBits", toBits(returnType, call));
+				source.append("\t\t\tpublic Class<?> getPrimitiveType()\n\t\t\t{\n\t\t\t\treturn ").append(returnType.name().toLowerCase()).append(".class;\n\t\t\t}\n\n");
+				appendMethod(source, "Object getValue", wrapperOf(returnType) + ".valueOf(" + call + ")");
+			}
+			else
+			{
+				source.append("PropertyAccessor()\n\t\t{\n");
+				appendMethod(source, "Object getValue", call);
+			}
+
+			source.append("\t\t});\n");
+		}
+
+		source.append("\t\treturn accessors;\n\t}\n}\n");
+
+		try
+		{
+			final Writer writer = this.processingEnv.getFiler().createSourceFile((packageName.length() == 0 ? "" : packageName + ".") + simpleName, type).openWriter();
+
+			try
+			{
+				writer.write(source.toString());
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		catch(final IOException e)
+		{
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + simpleName + ": " + e, type);
+		}
+	}
+}
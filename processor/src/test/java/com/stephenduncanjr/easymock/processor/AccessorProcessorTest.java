@@ -0,0 +1,204 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.processor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.Test;
+
+import com.stephenduncanjr.easymock.matcher.AccessorTable;
+import com.stephenduncanjr.easymock.matcher.BeanProperty;
+import com.stephenduncanjr.easymock.matcher.PrimitivePropertyAccessor;
+import com.stephenduncanjr.easymock.matcher.PropertyAccessor;
+import com.stephenduncanjr.easymock.matcher.PropertyAccessors;
+
+/**
+ * Tests AccessorProcessor by compiling a marked bean with it.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class AccessorProcessorTest
+{
+	/** Source of the marked bean. */
+	private static final String SOURCE = "package sample;\n" //
+		+ "interface Labelled { default String getLabel() { return \"label\"; } }\n" //
+		+ "@com.stephenduncanjr.easymock.matcher.GenerateAccessors\n" //
+		+ "public class Item implements Labelled {\n" //
+		+ "  public String getName() { return \"item\"; }\n" //
+		+ "  public int getCount() { return 3; }\n" //
+		+ "  public boolean isActive() { return true; }\n" //
+		+ "  public boolean getActive() { throw new IllegalStateException(); }\n" //
+		+ "  public String getBroken() throws Exception { throw new Exception(\"broken\"); }\n" //
+		+ "  public String getFailing() { throw new AssertionError(\"failing\"); }\n" //
+		+ "  public static String getShared() { return \"shared\"; }\n" //
+		+ "  String getHidden() { return \"hidden\"; }\n" //
+		+ "}\n";
+
+	/**
+	 * Deletes a file, or a directory and everything in it.
+	 * 
+	 * @param file
+	 */
+	private static void delete(final File file)
+	{
+		final File[] children = file.listFiles();
+
+		if(children != null)
+		{
+			for(final File child : children)
+			{
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+	/**
+	 * Tests the generated table.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testGeneratedTable() throws Exception
+	{
+		final File directory = File.createTempFile("processor", "");
+		directory.delete();
+
+		try
+		{
+			testGeneratedTable(directory);
+		}
+		finally
+		{
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Compiles the marked bean into the given directory and tests its table.
+	 * 
+	 * @param directory
+	 * @throws Exception
+	 */
+	private void testGeneratedTable(final File directory) throws Exception
+	{
+		final File sourceFile = new File(directory, "sample/Item.java");
+		sourceFile.getParentFile().mkdirs();
+
+		final Writer writer = new FileWriter(sourceFile);
+
+		try
+		{
+			writer.write(SOURCE);
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		final String classPath = new File(AccessorTable.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+
+		try
+		{
+			final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, Arrays.asList("-classpath", classPath, "-d", directory.getPath()), null, fileManager.getJavaFileObjects(sourceFile));
+			task.setProcessors(Collections.singleton(new AccessorProcessor()));
+
+			assertTrue(task.call().booleanValue(), "Marked bean and its table should compile.");
+		}
+		finally
+		{
+			fileManager.close();
+		}
+
+		final URLClassLoader loader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+
+		try
+		{
+			testTable(loader);
+		}
+		finally
+		{
+			loader.close();
+		}
+	}
+
+	/**
+	 * Tests the table of the compiled bean.
+	 * 
+	 * @param loader
+	 *        loader of the compiled bean and table.
+	 * @throws Exception
+	 */
+	private void testTable(final ClassLoader loader) throws Exception
+	{
+		final Class<?> itemClass = loader.loadClass("sample.Item");
+		final Class<?> tableClass = loader.loadClass("sample.Item_PropertyAccessors");
+		final Object item = itemClass.getDeclaredConstructor().newInstance();
+		final Map<String, PropertyAccessor> accessors = ((AccessorTable) tableClass.getDeclaredConstructor().newInstance()).getAccessors();
+
+		assertEquals(accessors.keySet().toString(), "[active, broken, count, failing, name]", "Public instance getters other than default methods should be listed in name order.");
+		assertEquals(accessors.get("name").getValue(item), "item", "Getter should be called.");
+		assertEquals(accessors.get("active").getValue(item), Boolean.TRUE, "Is method should take precedence.");
+		assertEquals(((PrimitivePropertyAccessor) accessors.get("count")).getBits(item), 3L, "Primitive should be read as bits.");
+		assertEquals(((PrimitivePropertyAccessor) accessors.get("count")).getPrimitiveType(), Integer.TYPE, "Primitive type should be reported.");
+
+		try
+		{
+			accessors.get("broken").getValue(item);
+			fail("Getter exception should be thrown.");
+		}
+		catch(final InvocationTargetException e)
+		{
+			assertEquals(e.getCause().getMessage(), "broken", "Getter exception should be wrapped as by reflection.");
+		}
+
+		try
+		{
+			accessors.get("failing").getValue(item);
+			fail("Getter error should be thrown.");
+		}
+		catch(final InvocationTargetException e)
+		{
+			assertTrue(e.getCause() instanceof AssertionError, "Getter error should be wrapped as by reflection.");
+		}
+
+		assertTrue(new BeanProperty("count", Integer.valueOf(3)).matches(item), "Matcher should read primitives from the table.");
+		assertFalse(new BeanProperty("name", "other").matches(item), "Matcher should compare values from the table.");
+		assertSame(PropertyAccessors.forProperty(itemClass, "count").getClass().getEnclosingClass(), tableClass, "Matchers should resolve primitive properties to the table.");
+		assertSame(PropertyAccessors.forProperty(itemClass, "name").getClass().getEnclosingClass(), tableClass, "Matchers should resolve properties to the table.");
+	}
+}
@@ -15,18 +15,22 @@ package com.stephenduncanjr.easymock;
 
 import static org.easymock.EasyMock.reportMatcher;
 
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
 import com.stephenduncanjr.easymock.matcher.BeanProperty;
+import com.stephenduncanjr.easymock.matcher.DeepBeanProperty;
+import com.stephenduncanjr.easymock.matcher.ElementsBeanProperty;
+import com.stephenduncanjr.easymock.matcher.KeyedBeanProperty;
+import com.stephenduncanjr.easymock.matcher.PredicateBeanProperty;
+import com.stephenduncanjr.easymock.matcher.PropertyLayout;
+import com.stephenduncanjr.easymock.matcher.PropertyPredicate;
+import com.stephenduncanjr.easymock.matcher.PropertyPredicates;
 
 /**
  * Utilities for using EasyMock.
@@ -84,7 +88,7 @@ public class EasyMockPropertyUtils
 	public static <T> T propEq(@SuppressWarnings("unused")
 	final Class<T> inClass, final Object valuesObject)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, EMPTY)));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), EMPTY), valuesObject, false));
 		return null;
 	}
 
@@ -107,7 +111,7 @@ public class EasyMockPropertyUtils
 	public static <T> T propEq(@SuppressWarnings("unused")
 	final Class<T> inClass, final Object valuesObject, final List<String> ignored)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, ignored)));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), ignored), valuesObject, false));
 		return null;
 	}
 
@@ -130,7 +134,7 @@ public class EasyMockPropertyUtils
 	public static <T> T propEq(@SuppressWarnings("unused")
 	final Class<T> inClass, final Object valuesObject, final String[] ignored)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, Arrays.asList(ignored))));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), Arrays.asList(ignored)), valuesObject, false));
 		return null;
 	}
 
@@ -169,7 +173,7 @@ public class EasyMockPropertyUtils
 	 */
 	public static <T> T propEq(final T valuesObject)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, EMPTY)));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), EMPTY), valuesObject, false));
 		return null;
 	}
 
@@ -189,7 +193,7 @@ public class EasyMockPropertyUtils
 	 */
 	public static <T> T propEq(final T valuesObject, final List<String> ignored)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, ignored)));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), ignored), valuesObject, false));
 		return null;
 	}
 
@@ -209,7 +213,446 @@ public class EasyMockPropertyUtils
 	 */
 	public static <T> T propEq(final T valuesObject, final String[] ignored)
 	{
-		reportMatcher(new BeanProperty(retrieveAndFilterProperties(valuesObject, Arrays.asList(ignored))));
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), Arrays.asList(ignored)), valuesObject, false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the named properties on the argument to match the
+	 * same properties on the given object. Only the named properties are read
+	 * from the given object.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param included
+	 *        the list of property names to match.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqIncluding(@SuppressWarnings("unused")
+	final Class<T> inClass, final Object valuesObject, final List<String> included)
+	{
+		reportMatcher(new BeanProperty(PropertyLayout.including(valuesObject.getClass(), included), valuesObject, false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the named properties on the argument to match the
+	 * same properties on the given object. Only the named properties are read
+	 * from the given object.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param included
+	 *        the array of property names to match.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqIncluding(final Class<T> inClass, final Object valuesObject, final String[] included)
+	{
+		return propEqIncluding(inClass, valuesObject, Arrays.asList(included));
+	}
+
+	/**
+	 * EasyMock matcher for the named properties on the argument to match the
+	 * same properties on the given object. Only the named properties are read
+	 * from the given object.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param included
+	 *        the list of property names to match.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqIncluding(final T valuesObject, final List<String> included)
+	{
+		reportMatcher(new BeanProperty(PropertyLayout.including(valuesObject.getClass(), included), valuesObject, false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the named properties on the argument to match the
+	 * same properties on the given object. Only the named properties are read
+	 * from the given object.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param included
+	 *        the array of property names to match.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqIncluding(final T valuesObject, final String[] included)
+	{
+		return propEqIncluding(valuesObject, Arrays.asList(included));
+	}
+
+	/**
+	 * EasyMock matcher for the properties on the argument to match the
+	 * properties on the given object, as they are when the matcher is first
+	 * used. The values are read from the given object once, on the first
+	 * match, rather than when the expectation is recorded.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqLazy(final T valuesObject)
+	{
+		return propEqLazy(valuesObject, EMPTY);
+	}
+
+	/**
+	 * EasyMock matcher for the properties on the argument to match the
+	 * properties on the given object, as they are when the matcher is first
+	 * used, ignoring the properties named in the given list.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param ignored
+	 *        the list of property names to ignore.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqLazy(final T valuesObject, final List<String> ignored)
+	{
+		reportMatcher(new BeanProperty(PropertyLayout.forClass(valuesObject.getClass(), ignored), valuesObject, true));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the properties on the argument to match the
+	 * properties on the given object, as they are when the matcher is first
+	 * used, ignoring the properties named in the given array.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param ignored
+	 *        the array of property names to ignore.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqLazy(final T valuesObject, final String[] ignored)
+	{
+		return propEqLazy(valuesObject, Arrays.asList(ignored));
+	}
+
+	/**
+	 * EasyMock matcher for the object graph of the argument to match the graph
+	 * of the given object, comparing nested beans, lists, arrays and maps
+	 * property by property.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propDeepEq(final T valuesObject)
+	{
+		return propDeepEq(valuesObject, DeepBeanProperty.UNLIMITED);
+	}
+
+	/**
+	 * EasyMock matcher for the object graph of the argument to match the graph
+	 * of the given object down to the given depth, below which values are
+	 * compared with <code>equals</code>.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param maxDepth
+	 *        the depth at which values are compared with <code>equals</code>;
+	 *        1 behaves like {@link #propEq(Object)}.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propDeepEq(final T valuesObject, final int maxDepth)
+	{
+		final Map<Class<?>, Collection<String>> ignored = Collections.emptyMap();
+		return propDeepEq(valuesObject, maxDepth, ignored);
+	}
+
+	/**
+	 * EasyMock matcher for the object graph of the argument to match the graph
+	 * of the given object down to the given depth, ignoring the properties
+	 * named for each class.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param maxDepth
+	 *        the depth at which values are compared with <code>equals</code>;
+	 *        1 behaves like {@link #propEq(Object)}.
+	 * @param ignored
+	 *        the property names to ignore, by the class declaring them; names
+	 *        also apply to subclasses.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propDeepEq(final T valuesObject, final int maxDepth, final Map<Class<?>, ? extends Collection<String>> ignored)
+	{
+		final Collection<String> rootIgnored = DeepBeanProperty.ignoredProperties(valuesObject.getClass(), ignored);
+		reportMatcher(new DeepBeanProperty(retrieveAndFilterProperties(valuesObject, rootIgnored), maxDepth, ignored));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the properties on every element of the collection
+	 * or array to be matched being equal to the mapped value. Matching stops
+	 * at the first element that differs, and large arguments are matched on
+	 * several threads as configured by
+	 * {@link com.stephenduncanjr.easymock.matcher.MatcherConfiguration#setParallelThreshold(int)}.
+	 * 
+	 * @param <T>
+	 *        The type of collection to match.
+	 * @param inClass
+	 *        The type of the collection to match.
+	 * @param properties
+	 *        The map of property names to property values.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T eachPropEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final Map<String, ?> properties)
+	{
+		reportMatcher(new ElementsBeanProperty(new BeanProperty(properties), true));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the property on every element of the collection or
+	 * array to be matched being equal to the given value.
+	 * 
+	 * @param <T>
+	 *        The type of collection to match.
+	 * @param inClass
+	 *        The type of the collection to match.
+	 * @param property
+	 *        the property name.
+	 * @param value
+	 *        the property value.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T eachPropEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final String property, final Object value)
+	{
+		reportMatcher(new ElementsBeanProperty(new BeanProperty(property, value), true));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the properties on at least one element of the
+	 * collection or array to be matched being equal to the mapped value.
+	 * Matching stops at the first element that matches.
+	 * 
+	 * @param <T>
+	 *        The type of collection to match.
+	 * @param inClass
+	 *        The type of the collection to match.
+	 * @param properties
+	 *        The map of property names to property values.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T anyPropEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final Map<String, ?> properties)
+	{
+		reportMatcher(new ElementsBeanProperty(new BeanProperty(properties), false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the property on at least one element of the
+	 * collection or array to be matched being equal to the given value.
+	 * 
+	 * @param <T>
+	 *        The type of collection to match.
+	 * @param inClass
+	 *        The type of the collection to match.
+	 * @param property
+	 *        the property name.
+	 * @param value
+	 *        the property value.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T anyPropEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final String property, final Object value)
+	{
+		reportMatcher(new ElementsBeanProperty(new BeanProperty(property, value), false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the fields on the object to be matched being equal
+	 * to the mapped value. Fields are read directly, so getters are never
+	 * invoked.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param fields
+	 *        The map of field names to field values.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propFieldEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final Map<String, ?> fields)
+	{
+		reportMatcher(new BeanProperty(fields, true));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the field on the object to be matched being equal
+	 * to the given value. The field is read directly, so getters are never
+	 * invoked.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param field
+	 *        the field name.
+	 * @param value
+	 *        the field value.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propFieldEq(@SuppressWarnings("unused")
+	final Class<T> inClass, final String field, final Object value)
+	{
+		reportMatcher(new BeanProperty(Collections.singletonMap(field, value), true));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the instance fields on the argument to match the
+	 * fields on the given object. Fields are read directly, so getters are
+	 * never invoked.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propFieldEq(final T valuesObject)
+	{
+		return propFieldEq(valuesObject, EMPTY);
+	}
+
+	/**
+	 * EasyMock matcher for the instance fields on the argument to match the
+	 * fields on the given object, ignoring the fields named in the given list.
+	 * Fields are read directly, so getters are never invoked.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param ignored
+	 *        the list of field names to ignore.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propFieldEq(final T valuesObject, final List<String> ignored)
+	{
+		reportMatcher(new BeanProperty(PropertyLayout.forFields(valuesObject.getClass(), ignored), valuesObject, false));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the instance fields on the argument to match the
+	 * fields on the given object, ignoring the fields named in the given
+	 * array. Fields are read directly, so getters are never invoked.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param ignored
+	 *        the array of field names to ignore.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propFieldEq(final T valuesObject, final String[] ignored)
+	{
+		return propFieldEq(valuesObject, Arrays.asList(ignored));
+	}
+
+	/**
+	 * EasyMock matcher for the object to be matched having one of the given
+	 * values of a key property, and the properties mapped for that value.
+	 * The key property is read once and the entry for its value looked up by
+	 * hash, so one such matcher can replace many {@link #propEq(Class, Map)}
+	 * expectations on the same method at constant cost per call.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param keyProperty
+	 *        the name of the key property.
+	 * @param properties
+	 *        The maps of property names to property values, by the value of
+	 *        the key property; primitive key values are given boxed.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propEqByKey(@SuppressWarnings("unused")
+	final Class<T> inClass, final String keyProperty, final Map<?, ? extends Map<String, ?>> properties)
+	{
+		reportMatcher(new KeyedBeanProperty(keyProperty, properties));
+		return null;
+	}
+
+	/**
+	 * EasyMock matcher for the properties on the object to be matched
+	 * satisfying a predicate built with {@link PropertyPredicates}. The
+	 * predicate is compiled once; each property is read at most once per
+	 * match, and the cheapest conditions are checked first.
+	 * 
+	 * @param <T>
+	 *        The type of object to match.
+	 * @param inClass
+	 *        The type of the object to match.
+	 * @param predicate
+	 *        the predicate on the properties.
+	 * @return fake return value for EasyMock use.
+	 * @since 1.2
+	 */
+	public static <T> T propThat(@SuppressWarnings("unused")
+	final Class<T> inClass, final PropertyPredicate predicate)
+	{
+		reportMatcher(new PredicateBeanProperty(predicate));
 		return null;
 	}
 
@@ -263,23 +706,11 @@ public class EasyMockPropertyUtils
 	 * @param ignoredProperties
 	 * @return map of properties names to values.
 	 */
-	private static Map<String, Object> retrieveAndFilterProperties(final Object bean, final List<String> ignoredProperties)
+	private static Map<String, Object> retrieveAndFilterProperties(final Object bean, final Collection<String> ignoredProperties)
 	{
-		final Map<String, Object> map = new HashMap<String, Object>();
-
 		try
 		{
-			for(final PropertyDescriptor p : PropertyUtils.getPropertyDescriptors(bean))
-			{
-				if(!ignoredProperties.contains(p.getName()) && !"class".equals(p.getName()))
-				{
-					final Method readMethod = p.getReadMethod();
-					
-					if (readMethod != null) {
-						map.put(p.getName(), readMethod.invoke(bean));
-					}
-				}
-			}
+			return PropertyLayout.forClass(bean.getClass(), ignoredProperties).readValues(bean);
 		}
 		catch(final IllegalAccessException e)
 		{
@@ -289,7 +720,9 @@ public class EasyMockPropertyUtils
 		{
 			throw new IllegalArgumentException(e);
 		}
-
-		return map;
+		catch(final NoSuchMethodException e)
+		{
+			throw new IllegalArgumentException(e);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.Map;
+
+/**
+ * The readable properties of one class, with accessors that call the getters
+ * directly. Implemented by the classes generated for beans marked with
+ * {@link GenerateAccessors}.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface AccessorTable
+{
+	/**
+	 * @return the accessors of the readable properties other than
+	 *         <code>class</code>, by property name, in name order.
+	 */
+	Map<String, PropertyAccessor> getAccessors();
+}
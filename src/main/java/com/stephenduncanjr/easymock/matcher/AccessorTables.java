@@ -0,0 +1,117 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Finds and caches the {@link AccessorTable}s generated for classes marked
+ * with {@link GenerateAccessors}.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class AccessorTables
+{
+	/** Suffix of the binary name of a generated table class. */
+	static final String SUFFIX = "_PropertyAccessors";
+
+	/** Loaded accessors by class. */
+	private static final ClassCache<Map<String, PropertyAccessor>> CACHE = new ClassCache<Map<String, PropertyAccessor>>("accessor tables");
+
+	/** Marks marked classes whose table could not be loaded. */
+	private static final Map<String, PropertyAccessor> NONE = Collections.emptyMap();
+
+	/**
+	 * Disables object creation.
+	 */
+	private AccessorTables()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * Gets the generated accessors of the given class.
+	 * 
+	 * @param type
+	 * @return the accessors by property name, in name order, or
+	 *         <code>null</code> if the class is not marked or its table was
+	 *         not generated.
+	 */
+	static Map<String, PropertyAccessor> forClass(final Class<?> type)
+	{
+		if(!type.isAnnotationPresent(GenerateAccessors.class))
+		{
+			return null;
+		}
+
+		Map<String, PropertyAccessor> accessors = CACHE.get(type);
+
+		if(accessors == null)
+		{
+			accessors = CACHE.putIfAbsent(type, load(type));
+		}
+
+		return accessors == NONE ? null : accessors;
+	}
+
+	/**
+	 * Loads and instantiates the generated table of the given class.
+	 * 
+	 * @param type
+	 * @return the accessors, or {@link #NONE}.
+	 */
+	private static Map<String, PropertyAccessor> load(final Class<?> type)
+	{
+		try
+		{
+			final Class<?> tableClass = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+
+			if(AccessorTable.class.isAssignableFrom(tableClass))
+			{
+				return Collections.unmodifiableMap(((AccessorTable) tableClass.getDeclaredConstructor().newInstance()).getAccessors());
+			}
+		}
+		catch(final ClassNotFoundException e)
+		{
+			// Not generated; introspect instead
+		}
+		catch(final InstantiationException e)
+		{
+			// Not usable; introspect instead
+		}
+		catch(final IllegalAccessException e)
+		{
+			// Not usable; introspect instead
+		}
+		catch(final InvocationTargetException e)
+		{
+			// Not usable; introspect instead
+		}
+		catch(final NoSuchMethodException e)
+		{
+			// Not usable; introspect instead
+		}
+		catch(final LinkageError e)
+		{
+			// Not usable; introspect instead
+		}
+
+		return NONE;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Evaluation order for the properties of a matcher, adapted to how often
+ * each property has failed to match and how long reading it takes. Properties
+ * are ordered by expected cost per rejection, so that the cheapest, most
+ * selective ones are checked first. The failure rate of each property is
+ * estimated as if it had failed once in two further evaluations, so that a
+ * property that has never failed can still be ordered by its cost, and the
+ * cost of a property that has not been timed is taken as the average cost.
+ * A property that has never been evaluated, because the properties before it
+ * always failed, is moved to the front for the next interval to measure it.
+ * 
+ * The statistics are updated without synchronization; lost updates from
+ * concurrent matches only make them slightly less accurate.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class AdaptiveOrdering
+{
+	/** Number of matches between reorderings. */
+	private static final int REORDER_INTERVAL = 256;
+
+	/** Mismatches assumed for each property before its first evaluation. */
+	private static final int PRIOR_MISMATCHES = 1;
+
+	/** Evaluations assumed for each property before its first evaluation. */
+	private static final int PRIOR_EVALUATIONS = 2;
+
+	/** Evaluation count above which statistics are halved, to follow change. */
+	private static final int DECAY_THRESHOLD = 1 << 16;
+
+	/** Every how many matches a match is timed. */
+	private static final int TIMING_INTERVAL = 16;
+
+	/** Evaluations per property. */
+	private final int[] evaluations;
+
+	/** Matches since the last reordering. */
+	private int matches;
+
+	/** Mismatches per property. */
+	private final int[] mismatches;
+
+	/** Nanoseconds spent in timed evaluations, per property. */
+	private final long[] nanos;
+
+	/** The current order, as property indexes. */
+	private volatile int[] order;
+
+	/** Timed evaluations per property. */
+	private final int[] timedEvaluations;
+
+	/**
+	 * @param size
+	 *        the number of properties.
+	 */
+	AdaptiveOrdering(final int size)
+	{
+		this.evaluations = new int[size];
+		this.mismatches = new int[size];
+		this.nanos = new long[size];
+		this.timedEvaluations = new int[size];
+		this.order = new int[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			this.order[i] = i;
+		}
+	}
+
+	/**
+	 * @return the property indexes in the order to evaluate them.
+	 */
+	int[] order()
+	{
+		return this.order;
+	}
+
+	/**
+	 * Starts a match.
+	 * 
+	 * @return whether the evaluations of this match should be timed.
+	 */
+	boolean startMatch()
+	{
+		final int count = ++this.matches;
+
+		if(count >= REORDER_INTERVAL)
+		{
+			this.matches = 0;
+			reorder();
+		}
+
+		return count % TIMING_INTERVAL == 0;
+	}
+
+	/**
+	 * Records the evaluation of one property.
+	 * 
+	 * @param property
+	 *        the property index.
+	 * @param matched
+	 *        whether the property matched.
+	 * @param elapsed
+	 *        the nanoseconds taken, or -1 if not timed.
+	 */
+	void record(final int property, final boolean matched, final long elapsed)
+	{
+		this.evaluations[property]++;
+
+		if(!matched)
+		{
+			this.mismatches[property]++;
+		}
+
+		if(elapsed >= 0)
+		{
+			this.timedEvaluations[property]++;
+			this.nanos[property] += elapsed;
+		}
+	}
+
+	/**
+	 * Computes a new order from the statistics.
+	 */
+	private void reorder()
+	{
+		final int size = this.evaluations.length;
+		final double[] costPerRejection = new double[size];
+		final Integer[] indexes = new Integer[size];
+		long totalNanos = 0;
+		long totalTimed = 0;
+
+		for(int i = 0; i < size; i++)
+		{
+			totalNanos += this.nanos[i];
+			totalTimed += this.timedEvaluations[i];
+		}
+
+		final double averageCost = totalTimed == 0 ? 1 : (double) totalNanos / totalTimed;
+
+		for(int i = 0; i < size; i++)
+		{
+			indexes[i] = Integer.valueOf(i);
+
+			if(this.evaluations[i] == 0)
+			{
+				costPerRejection[i] = -1;
+				continue;
+			}
+
+			final double cost = this.timedEvaluations[i] == 0 ? averageCost : (double) this.nanos[i] / this.timedEvaluations[i];
+			final double selectivity = (double) (this.mismatches[i] + PRIOR_MISMATCHES) / (this.evaluations[i] + PRIOR_EVALUATIONS);
+			costPerRejection[i] = cost / selectivity;
+
+			if(this.evaluations[i] > DECAY_THRESHOLD)
+			{
+				this.evaluations[i] /= 2;
+				this.mismatches[i] /= 2;
+				this.timedEvaluations[i] /= 2;
+				this.nanos[i] /= 2;
+			}
+		}
+
+		Arrays.sort(indexes, new Comparator<Integer>()
+		{
+			public int compare(final Integer o1, final Integer o2)
+			{
+				return Double.compare(costPerRejection[o1.intValue()], costPerRejection[o2.intValue()]);
+			}
+		});
+
+		final int[] newOrder = new int[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			newOrder[i] = indexes[i].intValue();
+		}
+
+		this.order = newOrder;
+	}
+}
@@ -15,11 +15,12 @@
 package com.stephenduncanjr.easymock.matcher;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.easymock.IArgumentMatcher;
 
 /**
@@ -31,8 +32,126 @@ import org.easymock.IArgumentMatcher;
  */
 public class BeanProperty implements IArgumentMatcher
 {
-	/** Map of property names to values to match against. */
-	private final Map<String, ?> expectedProperties;
+	/**
+	 * The property that failed the most recent match, with what was read for
+	 * it.
+	 */
+	private static class Mismatch
+	{
+		/** The index of the property. */
+		final int index;
+
+		/** The exception reading the property threw, or <code>null</code>. */
+		final Throwable thrown;
+
+		/** The value read, when no exception was thrown. */
+		final Object value;
+
+		/**
+		 * @param index
+		 * @param value
+		 * @param thrown
+		 */
+		Mismatch(final int index, final Object value, final Throwable thrown)
+		{
+			this.index = index;
+			this.value = value;
+			this.thrown = thrown;
+		}
+
+		/**
+		 * Appends what was read for the property.
+		 * 
+		 * @param buffer
+		 */
+		void appendTo(final StringBuffer buffer)
+		{
+			buffer.append(" [actual: ");
+
+			if(this.thrown != null)
+			{
+				buffer.append("threw ");
+				buffer.append(this.thrown);
+			}
+			else if(this.value == PropertyAccessors.NO_SUCH_PROPERTY)
+			{
+				buffer.append("no such property");
+			}
+			else
+			{
+				buffer.append(this.value);
+			}
+
+			buffer.append("]");
+		}
+	}
+
+	/**
+	 * Generated comparison for the last argument class seen.
+	 */
+	private static class Generated
+	{
+		/** The comparison, or <code>null</code> if none could be generated. */
+		final CompiledMatcher matcher;
+
+		/** The argument class. */
+		final Class<?> type;
+
+		/**
+		 * @param type
+		 * @param matcher
+		 */
+		Generated(final Class<?> type, final CompiledMatcher matcher)
+		{
+			this.type = type;
+			this.matcher = matcher;
+		}
+	}
+
+	/**
+	 * Values to match against, in the order of the property paths; read on
+	 * first use by lazy matchers.
+	 */
+	private volatile ExpectedValues expectedValues;
+
+	/**
+	 * Argument classes the listener has been told no comparison could be
+	 * generated for, or <code>null</code> if that is not reported.
+	 */
+	private final Set<Class<?>> fallbackClasses;
+
+	/** Whether the properties are read from fields rather than getters. */
+	private final boolean fields;
+
+	/**
+	 * Whether to match with generated code where possible, instead of
+	 * reflection.
+	 */
+	private final boolean generate;
+
+	/** Generated comparison for the last argument class, if any. */
+	private volatile Generated generated;
+
+	/**
+	 * The failing property of the most recent match, or <code>null</code> if
+	 * it matched.
+	 */
+	private volatile Mismatch lastMismatch;
+
+	/** Listener to report to, or <code>null</code>. */
+	private final MatcherListener listener;
+
+	/** Adaptive evaluation order, or <code>null</code> to use the given order. */
+	private final AdaptiveOrdering ordering;
+
+	/** Parsed paths of the properties to match. */
+	private final PropertyPath[] propertyPaths;
+
+	/** Layout to read the expected values with, until they are read. */
+	private PropertyLayout valuesLayout;
+
+	/** Object to read the expected values from, until they are read. */
+	private Object valuesObject;
 
 	/**
 	 * Creates a new match for the given map of property names to values.
@@ -41,9 +160,75 @@ public class BeanProperty implements IArgumentMatcher
 	 * @since 1.1
 	 */
 	public BeanProperty(final Map<String, ?> expectedProperties)
+	{
+		this(expectedProperties, false);
+	}
+
+	/**
+	 * Creates a new match for the given map of property or field names to
+	 * values.
+	 * 
+	 * @param expectedProperties
+	 * @param fields
+	 *        whether the names are fields, read directly instead of through
+	 *        getters.
+	 * @since 1.2
+	 */
+	public BeanProperty(final Map<String, ?> expectedProperties, final boolean fields)
+	{
+		super();
+		this.fields = fields;
+		this.propertyPaths = new PropertyPath[expectedProperties.size()];
+		final Object[] values = new Object[expectedProperties.size()];
+
+		int i = 0;
+
+		for(final Entry<String, ?> entry : expectedProperties.entrySet())
+		{
+			this.propertyPaths[i] = new PropertyPath(entry.getKey(), fields);
+			values[i] = entry.getValue();
+			i++;
+		}
+
+		this.expectedValues = new ExpectedValues(values);
+
+		this.ordering = createOrdering(this.propertyPaths.length);
+		this.generate = !fields && MatcherConfiguration.isGeneratedMatchers();
+		this.listener = MatcherConfiguration.getListener();
+		this.fallbackClasses = createFallbackClasses(this.generate, this.listener);
+	}
+
+	/**
+	 * Creates a new matcher for the properties in the given layout, matching
+	 * the values of the given object.
+	 * 
+	 * @param layout
+	 *        the properties or fields to match.
+	 * @param valuesObject
+	 *        the object to match values against.
+	 * @param lazy
+	 *        whether to read the values from the object on the first match,
+	 *        rather than now.
+	 * @throws IllegalArgumentException
+	 *         if the values cannot be read.
+	 * @since 1.2
+	 */
+	public BeanProperty(final PropertyLayout layout, final Object valuesObject, final boolean lazy)
 	{
 		super();
-		this.expectedProperties = expectedProperties;
+		this.fields = layout.isFields();
+		this.propertyPaths = layout.getPropertyPaths();
+		this.ordering = createOrdering(this.propertyPaths.length);
+		this.generate = !this.fields && MatcherConfiguration.isGeneratedMatchers();
+		this.listener = MatcherConfiguration.getListener();
+		this.fallbackClasses = createFallbackClasses(this.generate, this.listener);
+		this.valuesLayout = layout;
+		this.valuesObject = valuesObject;
+
+		if(!lazy)
+		{
+			expectedValues();
+		}
 	}
 
 	/**
@@ -55,9 +240,59 @@ public class BeanProperty implements IArgumentMatcher
 	public BeanProperty(final String propertyName, final Object expectedPropertyValue)
 	{
 		super();
-		final Map<String, Object> properties = new HashMap<String, Object>();
-		properties.put(propertyName, expectedPropertyValue);
-		this.expectedProperties = properties;
+		this.fields = false;
+		this.propertyPaths = new PropertyPath[] {new PropertyPath(propertyName)};
+		this.expectedValues = new ExpectedValues(new Object[] {expectedPropertyValue});
+		this.ordering = null;
+		this.generate = MatcherConfiguration.isGeneratedMatchers();
+		this.listener = MatcherConfiguration.getListener();
+		this.fallbackClasses = createFallbackClasses(this.generate, this.listener);
+	}
+
+	/**
+	 * Creates a matcher for the same properties and values as the given one,
+	 * with its own state, so that the two can match on different threads.
+	 * 
+	 * @param original
+	 */
+	private BeanProperty(final BeanProperty original)
+	{
+		super();
+		this.fields = original.fields;
+		this.propertyPaths = new PropertyPath[original.propertyPaths.length];
+
+		for(int i = 0; i < this.propertyPaths.length; i++)
+		{
+			this.propertyPaths[i] = new PropertyPath(original.propertyPaths[i].toString(), this.fields);
+		}
+
+		this.expectedValues = original.expectedValues();
+		this.ordering = original.ordering == null ? null : new AdaptiveOrdering(this.propertyPaths.length);
+		this.generate = original.generate;
+		this.listener = original.listener;
+		this.fallbackClasses = original.fallbackClasses;
+	}
+
+	/**
+	 * @param generate
+	 * @param listener
+	 * @return the set to record reported fallback classes in, held weakly,
+	 *         or <code>null</code> if there are none to report.
+	 */
+	private static Set<Class<?>> createFallbackClasses(final boolean generate, final MatcherListener listener)
+	{
+		return generate && listener != null ? Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>())) : null;
+	}
+
+	/**
+	 * @param size
+	 *        the number of properties.
+	 * @return the adaptive ordering if configured and useful, or
+	 *         <code>null</code>.
+	 */
+	private static AdaptiveOrdering createOrdering(final int size)
+	{
+		return MatcherConfiguration.isAdaptiveOrdering() && size > 1 ? new AdaptiveOrdering(size) : null;
 	}
 
 	/**
@@ -65,17 +300,31 @@ public class BeanProperty implements IArgumentMatcher
 	 */
 	public void appendTo(final StringBuffer buffer)
 	{
-		buffer.append("propertyEq(");
+		buffer.append(this.fields ? "fieldEq(" : "propertyEq(");
+
+		final ExpectedValues expected = expectedValues();
+		final Mismatch mismatch = this.lastMismatch;
 
-		for(final Entry<String, ?> entry : this.expectedProperties.entrySet())
+		for(int i = 0; i < this.propertyPaths.length; i++)
 		{
-			buffer.append(entry.getKey());
+			buffer.append(this.propertyPaths[i]);
 			buffer.append("=");
-			buffer.append(entry.getValue());
+			buffer.append(expected.getValue(i));
+
+			if(mismatch != null && mismatch.index == i)
+			{
+				mismatch.appendTo(buffer);
+			}
+
 			buffer.append(", ");
 		}
 
-		buffer.replace(buffer.length() - 2, buffer.length(), ")");
+		if(this.propertyPaths.length > 0)
+		{
+			buffer.setLength(buffer.length() - 2);
+		}
+
+		buffer.append(")");
 	}
 
 	/**
@@ -83,34 +332,314 @@ public class BeanProperty implements IArgumentMatcher
 	 */
 	public boolean matches(final Object actual)
 	{
-		for(final Entry<String, ?> entry : this.expectedProperties.entrySet())
+		if(actual == null)
+		{
+			clearMismatch();
+			return this.propertyPaths.length == 0;
+		}
+
+		final ExpectedValues expected = expectedValues();
+		final boolean matched;
+
+		if(this.ordering != null)
+		{
+			matched = matchesAdaptively(actual, expected);
+		}
+		else
+		{
+			final CompiledMatcher compiled = this.generate ? compiledMatcher(actual.getClass(), expected) : null;
+			matched = compiled != null ? matchesCompiled(compiled, actual, expected) : matchesInOrder(actual, expected);
+		}
+
+		if(this.listener != null)
+		{
+			this.listener.matched(actual.getClass(), matched);
+		}
+
+		return matched;
+	}
+
+	/**
+	 * @return a matcher for the same properties and values, with its own
+	 *         failing property, generated comparison, property resolutions
+	 *         and evaluation order.
+	 */
+	BeanProperty copy()
+	{
+		return new BeanProperty(this);
+	}
+
+	/**
+	 * Gets the generated comparison for the given argument class, remembering
+	 * the last class seen, and reports to the listener the first time no
+	 * comparison can be generated for a class.
+	 * 
+	 * @param type
+	 * @param expected
+	 * @return the comparison, or <code>null</code> if none can be generated.
+	 */
+	private CompiledMatcher compiledMatcher(final Class<?> type, final ExpectedValues expected)
+	{
+		Generated cached = this.generated;
+
+		if(cached == null || cached.type != type)
 		{
-			try
+			cached = new Generated(type, this.propertyPaths.length == 0 ? null : GeneratedMatchers.forClass(type, this.propertyPaths, expected));
+			this.generated = cached;
+
+			if(cached.matcher == null && this.fallbackClasses != null && this.fallbackClasses.add(type))
 			{
-				final Object actualValue = PropertyUtils.getProperty(actual, entry.getKey());
-				if(!(entry.getValue() == actualValue || entry.getValue().equals(actualValue)))
-				{
-					return false;
-				}
+				this.listener.fallback(type, null, null);
 			}
-			catch(IllegalAccessException e)
+		}
+
+		return cached.matcher;
+	}
+
+	/**
+	 * Forgets the failing property of an earlier match.
+	 */
+	private void clearMismatch()
+	{
+		if(this.lastMismatch != null)
+		{
+			this.lastMismatch = null;
+		}
+	}
+
+	/**
+	 * Matches the properties in adaptive order, recording the outcome of each.
+	 * 
+	 * @param actual
+	 * @param expected
+	 * @return whether all properties matched.
+	 */
+	private boolean matchesAdaptively(final Object actual, final ExpectedValues expected)
+	{
+		final boolean timed = this.ordering.startMatch();
+		final boolean clocked = timed || this.listener != null;
+
+		for(final int i : this.ordering.order())
+		{
+			final long start = clocked ? System.nanoTime() : 0;
+			final boolean matched = matchesProperty(i, actual, expected);
+			final long elapsed = clocked ? System.nanoTime() - start : -1;
+			this.ordering.record(i, matched, timed ? elapsed : -1);
+
+			if(this.listener != null)
 			{
-				return false;
+				reportProperty(actual.getClass(), i, matched, elapsed);
 			}
-			catch(InvocationTargetException e)
+
+			if(!matched)
 			{
 				return false;
 			}
-			catch(NoSuchMethodException e)
+		}
+
+		clearMismatch();
+		return true;
+	}
+
+	/**
+	 * Matches the properties with generated code.
+	 * 
+	 * @param compiled
+	 * @param actual
+	 * @param expected
+	 * @return whether all properties matched.
+	 */
+	private boolean matchesCompiled(final CompiledMatcher compiled, final Object actual, final ExpectedValues expected)
+	{
+		final long start = this.listener != null ? System.nanoTime() : 0;
+		final Object[] mismatch = new Object[1];
+		final int index = compiled.match(actual, expected.getValueArray(), expected.getBitArray(), mismatch);
+		final int failed = index < -1 ? -2 - index : index;
+
+		if(failed < 0)
+		{
+			clearMismatch();
+		}
+		else
+		{
+			this.lastMismatch = index >= 0 ? new Mismatch(index, mismatch[0], null) : new Mismatch(failed, null, (Throwable) mismatch[0]);
+		}
+
+		if(this.listener != null)
+		{
+			// The generated code reads every property in one call, so the time is shared out evenly
+			final int read = failed < 0 ? this.propertyPaths.length : failed + 1;
+			final long elapsed = (System.nanoTime() - start) / read;
+
+			for(int i = 0; i < read; i++)
 			{
-				return false;
+				reportProperty(actual.getClass(), i, i != failed, elapsed);
+			}
+		}
+
+		return failed < 0;
+	}
+
+	/**
+	 * Matches the properties in the given order.
+	 * 
+	 * @param actual
+	 * @param expected
+	 * @return whether all properties matched.
+	 */
+	private boolean matchesInOrder(final Object actual, final ExpectedValues expected)
+	{
+		for(int i = 0; i < this.propertyPaths.length; i++)
+		{
+			final long start = this.listener != null ? System.nanoTime() : 0;
+			final boolean matched = matchesProperty(i, actual, expected);
+
+			if(this.listener != null)
+			{
+				reportProperty(actual.getClass(), i, matched, System.nanoTime() - start);
 			}
-			catch(RuntimeException e)
+
+			if(!matched)
 			{
 				return false;
 			}
 		}
 
+		clearMismatch();
 		return true;
 	}
+
+	/**
+	 * Reports the read of one property to the listener, and the exception
+	 * that failed it, if any.
+	 * 
+	 * @param type
+	 * @param index
+	 * @param matched
+	 * @param nanos
+	 */
+	private void reportProperty(final Class<?> type, final int index, final boolean matched, final long nanos)
+	{
+		final String property = this.propertyPaths[index].toString();
+		this.listener.propertyRead(type, property, matched, nanos);
+
+		if(!matched)
+		{
+			final Mismatch mismatch = this.lastMismatch;
+
+			if(mismatch != null && mismatch.thrown != null)
+			{
+				this.listener.fallback(type, property, mismatch.thrown);
+			}
+		}
+	}
+
+	/**
+	 * Matches one property of the argument, keeping the value read if it
+	 * differs.
+	 * 
+	 * @param index
+	 *        the index of the property.
+	 * @param actual
+	 * @param expected
+	 * @return whether the property matched.
+	 */
+	private boolean matchesProperty(final int index, final Object actual, final ExpectedValues expected)
+	{
+		try
+		{
+			final Class<?> primitiveType = expected.getPrimitiveType(index);
+
+			if(primitiveType != null)
+			{
+				final PropertyAccessor accessor = this.propertyPaths[index].singleAccessor(actual.getClass());
+
+				if(accessor instanceof PrimitivePropertyAccessor && ((PrimitivePropertyAccessor) accessor).getPrimitiveType() == primitiveType)
+				{
+					final long bits = ((PrimitivePropertyAccessor) accessor).getBits(actual);
+
+					if(bits != expected.getBits(index))
+					{
+						this.lastMismatch = new Mismatch(index, PrimitiveValues.fromBits(primitiveType, bits), null);
+						return false;
+					}
+
+					return true;
+				}
+			}
+
+			final Object expectedValue = expected.getValue(index);
+			final Object actualValue = this.propertyPaths[index].getValue(actual);
+
+			if(actualValue != PropertyAccessors.NO_SUCH_PROPERTY && expected.admits(index, actualValue) && ContentEquality.equal(expectedValue, actualValue))
+			{
+				return true;
+			}
+
+			this.lastMismatch = new Mismatch(index, actualValue, null);
+		}
+		catch(IllegalAccessException e)
+		{
+			this.lastMismatch = new Mismatch(index, null, e);
+		}
+		catch(InvocationTargetException e)
+		{
+			this.lastMismatch = new Mismatch(index, null, e.getCause());
+		}
+		catch(NoSuchMethodException e)
+		{
+			this.lastMismatch = new Mismatch(index, null, e);
+		}
+		catch(RuntimeException e)
+		{
+			this.lastMismatch = new Mismatch(index, null, e);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets the expected values, reading them from the values object if that
+	 * has not happened yet.
+	 * 
+	 * @return the expected values, in the order of the property paths.
+	 */
+	private ExpectedValues expectedValues()
+	{
+		ExpectedValues values = this.expectedValues;
+
+		if(values == null)
+		{
+			synchronized(this)
+			{
+				values = this.expectedValues;
+
+				if(values == null)
+				{
+					try
+					{
+						values = new ExpectedValues(this.valuesLayout.readValueArray(this.valuesObject));
+					}
+					catch(final IllegalAccessException e)
+					{
+						throw new IllegalArgumentException(e);
+					}
+					catch(final InvocationTargetException e)
+					{
+						throw new IllegalArgumentException(e);
+					}
+					catch(final NoSuchMethodException e)
+					{
+						throw new IllegalArgumentException(e);
+					}
+
+					this.expectedValues = values;
+					this.valuesLayout = null;
+					this.valuesObject = null;
+				}
+			}
+		}
+
+		return values;
+	}
 }
\ No newline at end of file
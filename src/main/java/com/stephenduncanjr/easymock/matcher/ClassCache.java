@@ -0,0 +1,362 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-class metadata cache. Classes are held weakly and values softly. Values
+ * such as read methods and generated matchers refer back to their class, so
+ * a cached class and its class loader stay loaded until the value is
+ * evicted, cleared by the collector as memory runs low, or removed with
+ * {@link #clear()}; values that do not refer to the class do not keep it
+ * alive. The cache is bounded by
+ * {@link MatcherConfiguration#getClassCacheSize()}; once full, classes are
+ * dropped according to {@link MatcherConfiguration#getEvictionPolicy()}.
+ * Lookups take no locks and count into striped counters.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @param <V>
+ *        the type of the cached values.
+ * @since 1.2
+ */
+public final class ClassCache<V>
+{
+	/**
+	 * Weak reference to a class, equal to other references to the same class.
+	 */
+	private static class ClassKey extends WeakReference<Class<?>>
+	{
+		/** Identity hash of the class. */
+		private final int hash;
+
+		/**
+		 * @param type
+		 * @param queue
+		 *        the queue to enqueue on once the class is unloaded, or
+		 *        <code>null</code> for lookup keys.
+		 */
+		ClassKey(final Class<?> type, final ReferenceQueue<Class<?>> queue)
+		{
+			super(type, queue);
+			this.hash = System.identityHashCode(type);
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if(obj == this)
+			{
+				return true;
+			}
+
+			final Class<?> type = get();
+			return type != null && obj instanceof ClassKey && ((ClassKey) obj).get() == type;
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+	}
+
+	/**
+	 * Soft reference to a cached value, with its usage.
+	 * 
+	 * @param <V>
+	 *        the type of the value.
+	 */
+	private static class Value<V> extends SoftReference<V>
+	{
+		/** Value of <code>System.nanoTime()</code> when the value was last used. */
+		volatile long lastUsed;
+
+		/** Number of lookups of the value, approximate under contention. */
+		volatile int uses;
+
+		/**
+		 * @param value
+		 * @param lastUsed
+		 */
+		Value(final V value, final long lastUsed)
+		{
+			super(value);
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	/** All caches created, for reporting. */
+	private static final List<ClassCache<?>> CACHES = new CopyOnWriteArrayList<ClassCache<?>>();
+
+	/** Evicts least frequently used values first, then least recently used. */
+	private static final Comparator<Entry<ClassKey, ? extends Value<?>>> LEAST_FREQUENTLY_USED = new Comparator<Entry<ClassKey, ? extends Value<?>>>()
+	{
+		public int compare(final Entry<ClassKey, ? extends Value<?>> a, final Entry<ClassKey, ? extends Value<?>> b)
+		{
+			final int usesA = a.getValue().uses;
+			final int usesB = b.getValue().uses;
+			return usesA != usesB ? (usesA < usesB ? -1 : 1) : LEAST_RECENTLY_USED.compare(a, b);
+		}
+	};
+
+	/** Evicts least recently used values first. */
+	private static final Comparator<Entry<ClassKey, ? extends Value<?>>> LEAST_RECENTLY_USED = new Comparator<Entry<ClassKey, ? extends Value<?>>>()
+	{
+		public int compare(final Entry<ClassKey, ? extends Value<?>> a, final Entry<ClassKey, ? extends Value<?>> b)
+		{
+			final long lastUsedA = a.getValue().lastUsed;
+			final long lastUsedB = b.getValue().lastUsed;
+			return lastUsedA == lastUsedB ? 0 : (lastUsedA - lastUsedB < 0 ? -1 : 1);
+		}
+	};
+
+	/** Number of values dropped without being replaced by the caller. */
+	private final LongAdder evictions = new LongAdder();
+
+	/** Number of lookups that found a value. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of lookups that found no value. */
+	private final LongAdder misses = new LongAdder();
+
+	/** Name of the cache, for reporting. */
+	private final String name;
+
+	/** Queue of keys whose classes were unloaded. */
+	private final ReferenceQueue<Class<?>> unloaded = new ReferenceQueue<Class<?>>();
+
+	/** Cached values. */
+	private final ConcurrentMap<ClassKey, Value<V>> values = new ConcurrentHashMap<ClassKey, Value<V>>();
+
+	/**
+	 * Creates a new cache.
+	 * 
+	 * @param name
+	 *        the name of the cache, for reporting.
+	 */
+	public ClassCache(final String name)
+	{
+		super();
+		this.name = name;
+		CACHES.add(this);
+	}
+
+	/**
+	 * @return all caches created, such as the accessor and layout caches.
+	 */
+	public static List<ClassCache<?>> getCaches()
+	{
+		return Collections.unmodifiableList(CACHES);
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void clear()
+	{
+		this.values.clear();
+	}
+
+	/**
+	 * Gets the value cached for the class.
+	 * 
+	 * @param type
+	 * @return the value, or <code>null</code> if none is cached.
+	 */
+	public V get(final Class<?> type)
+	{
+		final ClassKey key = new ClassKey(type, null);
+		final Value<V> value = this.values.get(key);
+
+		if(value != null)
+		{
+			final V cached = value.get();
+
+			if(cached != null)
+			{
+				value.lastUsed = System.nanoTime();
+				value.uses++;
+				this.hits.increment();
+				return cached;
+			}
+
+			if(this.values.remove(key, value))
+			{
+				this.evictions.increment();
+			}
+		}
+
+		this.misses.increment();
+		return null;
+	}
+
+	/**
+	 * @return the number of values dropped because the cache was full, memory
+	 *         ran low or their class was unloaded.
+	 */
+	public long getEvictionCount()
+	{
+		return this.evictions.sum();
+	}
+
+	/**
+	 * @return the number of lookups that found a value.
+	 */
+	public long getHitCount()
+	{
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that found no value.
+	 */
+	public long getMissCount()
+	{
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return the name of the cache.
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Caches a value for the class unless one is cached already.
+	 * 
+	 * @param type
+	 * @param value
+	 * @return the value now cached for the class.
+	 */
+	public V putIfAbsent(final Class<?> type, final V value)
+	{
+		expungeUnloaded();
+
+		final ClassKey key = new ClassKey(type, this.unloaded);
+		final Value<V> created = new Value<V>(value, System.nanoTime());
+		Value<V> existing = this.values.putIfAbsent(key, created);
+
+		while(existing != null)
+		{
+			final V cached = existing.get();
+
+			if(cached != null)
+			{
+				return cached;
+			}
+
+			if(this.values.replace(key, existing, created))
+			{
+				break;
+			}
+
+			existing = this.values.putIfAbsent(key, created);
+		}
+
+		if(this.values.size() > MatcherConfiguration.getClassCacheSize())
+		{
+			evict();
+		}
+
+		return value;
+	}
+
+	/**
+	 * @return the number of classes with a cached value.
+	 */
+	public int size()
+	{
+		return this.values.size();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return this.name + "[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	/**
+	 * Drops values until the cache is an eighth below its bound, so that
+	 * evicting is not repeated on every insert.
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized void evict()
+	{
+		final int maximum = MatcherConfiguration.getClassCacheSize();
+
+		if(this.values.size() <= maximum)
+		{
+			return;
+		}
+
+		final List<Entry<ClassKey, Value<V>>> entries = new ArrayList<Entry<ClassKey, Value<V>>>(this.values.entrySet());
+		final Comparator<?> order = MatcherConfiguration.getEvictionPolicy() == EvictionPolicy.LEAST_FREQUENTLY_USED ? LEAST_FREQUENTLY_USED : LEAST_RECENTLY_USED;
+		Collections.sort(entries, (Comparator<Entry<ClassKey, Value<V>>>) order);
+
+		final int target = maximum - maximum / 8;
+
+		for(int i = 0; i < entries.size() && this.values.size() > target; i++)
+		{
+			final Entry<ClassKey, Value<V>> entry = entries.get(i);
+
+			if(this.values.remove(entry.getKey(), entry.getValue()))
+			{
+				this.evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Removes the values of unloaded classes.
+	 */
+	private void expungeUnloaded()
+	{
+		Object key = this.unloaded.poll();
+
+		while(key != null)
+		{
+			if(this.values.remove(key) != null)
+			{
+				this.evictions.increment();
+			}
+
+			key = this.unloaded.poll();
+		}
+	}
+}
@@ -0,0 +1,715 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the few class files {@link GeneratedMatchers} needs: a public final
+ * class with a constructor and methods whose code uses forward branches and
+ * handlers catching any exception only.
+ * Classes are written in the Java 5 format, which the JVM verifies without
+ * stack map frames.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class ClassFileWriter
+{
+	/**
+	 * Bytecode of one method, with forward jumps patched once their target is
+	 * marked.
+	 */
+	static final class Code
+	{
+		/** The bytecode. */
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		/** Start, end and handler labels of each catch-all handler. */
+		private final List<int[]> handlers = new ArrayList<int[]>();
+
+		/** Offsets of the branch instructions jumping to each label. */
+		private final List<List<Integer>> jumps = new ArrayList<List<Integer>>();
+
+		/** Maximum number of local variable slots. */
+		private final int maxLocals;
+
+		/** Maximum operand stack depth. */
+		private final int maxStack;
+
+		/** The class being written. */
+		private final ClassFileWriter owner;
+
+		/** Bytecode offset of each label, or -1 until marked. */
+		private final List<Integer> targets = new ArrayList<Integer>();
+
+		/**
+		 * @param owner
+		 * @param maxStack
+		 * @param maxLocals
+		 */
+		Code(final ClassFileWriter owner, final int maxStack, final int maxLocals)
+		{
+			this.owner = owner;
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+		}
+
+		/**
+		 * Adds a handler catching any exception thrown between two labels.
+		 * 
+		 * @param start
+		 *        the label of the first protected instruction.
+		 * @param end
+		 *        the label after the last protected instruction.
+		 * @param handler
+		 *        the label of the handler, entered with the exception on the
+		 *        stack.
+		 */
+		void catchAll(final int start, final int end, final int handler)
+		{
+			this.handlers.add(new int[] {start, end, handler});
+		}
+
+		/**
+		 * Writes an instruction that refers to a class.
+		 * 
+		 * @param opcode
+		 * @param internalName
+		 */
+		void classInsn(final int opcode, final String internalName)
+		{
+			op(opcode);
+			u2(this.owner.classRef(internalName));
+		}
+
+		/**
+		 * Writes a method call.
+		 * 
+		 * @param opcode
+		 *        one of {@link #INVOKEVIRTUAL}, {@link #INVOKESPECIAL},
+		 *        {@link #INVOKESTATIC} or {@link #INVOKEINTERFACE}.
+		 * @param declaringClass
+		 *        internal name of the declaring class.
+		 * @param name
+		 * @param descriptor
+		 * @param argumentSlots
+		 *        slots taken by the arguments, excluding the receiver; used by
+		 *        interface calls.
+		 */
+		void invoke(final int opcode, final String declaringClass, final String name, final String descriptor, final int argumentSlots)
+		{
+			op(opcode);
+			u2(this.owner.methodRef(declaringClass, name, descriptor, opcode == INVOKEINTERFACE));
+
+			if(opcode == INVOKEINTERFACE)
+			{
+				op(argumentSlots + 1);
+				op(0);
+			}
+		}
+
+		/**
+		 * Writes a jump to a label.
+		 * 
+		 * @param opcode
+		 *        a branch opcode.
+		 * @param label
+		 */
+		void jump(final int opcode, final int label)
+		{
+			this.jumps.get(label).add(Integer.valueOf(this.bytes.size()));
+			op(opcode);
+			u2(0);
+		}
+
+		/**
+		 * Marks the current position as the target of a label.
+		 * 
+		 * @param label
+		 */
+		void mark(final int label)
+		{
+			this.targets.set(label, Integer.valueOf(this.bytes.size()));
+		}
+
+		/**
+		 * @return a new, unmarked label.
+		 */
+		int newLabel()
+		{
+			this.jumps.add(new ArrayList<Integer>());
+			this.targets.add(Integer.valueOf(-1));
+			return this.targets.size() - 1;
+		}
+
+		/**
+		 * Writes a one-byte instruction, or a single operand byte.
+		 * 
+		 * @param opcode
+		 */
+		void op(final int opcode)
+		{
+			this.bytes.write(opcode);
+		}
+
+		/**
+		 * Pushes an <code>int</code> constant.
+		 * 
+		 * @param value
+		 */
+		void pushInt(final int value)
+		{
+			if(value >= -1 && value <= 5)
+			{
+				op(ICONST_0 + value);
+			}
+			else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			{
+				op(BIPUSH);
+				op(value);
+			}
+			else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			{
+				op(SIPUSH);
+				u2(value);
+			}
+			else
+			{
+				op(LDC_W);
+				u2(this.owner.integer(value));
+			}
+		}
+
+		/**
+		 * Writes a local variable instruction.
+		 * 
+		 * @param opcode
+		 *        a load or store opcode taking an index operand.
+		 * @param index
+		 *        the local variable slot, below 256.
+		 */
+		void varInsn(final int opcode, final int index)
+		{
+			op(opcode);
+			op(index);
+		}
+
+		/**
+		 * @return the code attribute, with its jumps patched.
+		 * @throws IOException
+		 */
+		byte[] toAttribute() throws IOException
+		{
+			final byte[] code = this.bytes.toByteArray();
+
+			for(int label = 0; label < this.targets.size(); label++)
+			{
+				final int target = this.targets.get(label).intValue();
+
+				for(final Integer jump : this.jumps.get(label))
+				{
+					final int offset = target - jump.intValue();
+					code[jump.intValue() + 1] = (byte) (offset >> 8);
+					code[jump.intValue() + 2] = (byte) offset;
+				}
+			}
+
+			final ByteArrayOutputStream attribute = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(attribute);
+			out.writeShort(this.maxStack);
+			out.writeShort(this.maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(this.handlers.size());
+
+			for(final int[] handler : this.handlers)
+			{
+				for(final int label : handler)
+				{
+					out.writeShort(this.targets.get(label).intValue());
+				}
+
+				out.writeShort(0);
+			}
+
+			out.writeShort(0);
+			return attribute.toByteArray();
+		}
+
+		/**
+		 * Writes a two-byte operand.
+		 * 
+		 * @param value
+		 */
+		private void u2(final int value)
+		{
+			this.bytes.write(value >> 8);
+			this.bytes.write(value);
+		}
+	}
+
+	/** Opcode. */
+	static final int AALOAD = 0x32;
+
+	/** Opcode. */
+	static final int AASTORE = 0x53;
+
+	/** Opcode. */
+	static final int ALOAD = 0x19;
+
+	/** Opcode. */
+	static final int ASTORE = 0x3a;
+
+	/** Opcode. */
+	static final int BIPUSH = 0x10;
+
+	/** Opcode. */
+	static final int CHECKCAST = 0xc0;
+
+	/** Opcode. */
+	static final int DLOAD = 0x18;
+
+	/** Opcode. */
+	static final int DSTORE = 0x39;
+
+	/** Opcode. */
+	static final int FLOAD = 0x17;
+
+	/** Opcode. */
+	static final int FSTORE = 0x38;
+
+	/** Opcode. */
+	static final int I2L = 0x85;
+
+	/** Opcode. */
+	static final int ICONST_0 = 0x03;
+
+	/** Opcode. */
+	static final int IF_ACMPEQ = 0xa5;
+
+	/** Opcode. */
+	static final int IFEQ = 0x99;
+
+	/** Opcode. */
+	static final int IFNE = 0x9a;
+
+	/** Opcode. */
+	static final int IFNULL = 0xc6;
+
+	/** Opcode. */
+	static final int ILOAD = 0x15;
+
+	/** Opcode. */
+	static final int INVOKEINTERFACE = 0xb9;
+
+	/** Opcode. */
+	static final int INVOKESPECIAL = 0xb7;
+
+	/** Opcode. */
+	static final int INVOKESTATIC = 0xb8;
+
+	/** Opcode. */
+	static final int INVOKEVIRTUAL = 0xb6;
+
+	/** Opcode. */
+	static final int IRETURN = 0xac;
+
+	/** Opcode. */
+	static final int ISTORE = 0x36;
+
+	/** Opcode. */
+	static final int ISUB = 0x64;
+
+	/** Opcode. */
+	static final int LALOAD = 0x2f;
+
+	/** Opcode. */
+	static final int LCMP = 0x94;
+
+	/** Opcode. */
+	static final int LDC_W = 0x13;
+
+	/** Opcode. */
+	static final int LLOAD = 0x16;
+
+	/** Opcode. */
+	static final int LSTORE = 0x37;
+
+	/** Opcode. */
+	static final int RETURN = 0xb1;
+
+	/** Opcode. */
+	static final int SIPUSH = 0x11;
+
+	/** Class access flags: public, final, super. */
+	private static final int CLASS_ACCESS = 0x0001 | 0x0010 | 0x0020;
+
+	/** Class file version of Java 5. */
+	private static final int MAJOR_VERSION = 49;
+
+	/** Method access flag: public. */
+	private static final int PUBLIC = 0x0001;
+
+	/** Constant pool indexes by entry. */
+	private final Map<String, Integer> constants = new HashMap<String, Integer>();
+
+	/** Constant pool entries written so far. */
+	private final ByteArrayOutputStream constantPool = new ByteArrayOutputStream();
+
+	/** Number of constant pool slots used, starting at 1. */
+	private int constantCount = 1;
+
+	/** Internal names of the implemented interfaces. */
+	private final String[] interfaces;
+
+	/** Methods written so far. */
+	private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+
+	/** Number of methods written. */
+	private int methodCount;
+
+	/** Internal name of the class. */
+	private final String name;
+
+	/** Internal name of the superclass. */
+	private final String superName;
+
+	/**
+	 * @param name
+	 *        internal name of the class.
+	 * @param superName
+	 *        internal name of the superclass.
+	 * @param interfaces
+	 *        internal names of the implemented interfaces.
+	 */
+	ClassFileWriter(final String name, final String superName, final String... interfaces)
+	{
+		this.name = name;
+		this.superName = superName;
+		this.interfaces = interfaces;
+	}
+
+	/**
+	 * @param type
+	 * @return the descriptor of the type.
+	 */
+	static String descriptor(final Class<?> type)
+	{
+		if(type.isArray())
+		{
+			return "[" + descriptor(type.getComponentType());
+		}
+		else if(!type.isPrimitive())
+		{
+			return "L" + internalName(type) + ";";
+		}
+		else if(type == Integer.TYPE)
+		{
+			return "I";
+		}
+		else if(type == Long.TYPE)
+		{
+			return "J";
+		}
+		else if(type == Boolean.TYPE)
+		{
+			return "Z";
+		}
+		else if(type == Double.TYPE)
+		{
+			return "D";
+		}
+		else if(type == Character.TYPE)
+		{
+			return "C";
+		}
+		else if(type == Short.TYPE)
+		{
+			return "S";
+		}
+		else if(type == Byte.TYPE)
+		{
+			return "B";
+		}
+		else if(type == Float.TYPE)
+		{
+			return "F";
+		}
+
+		return "V";
+	}
+
+	/**
+	 * @param type
+	 * @return the internal name of the class.
+	 */
+	static String internalName(final Class<?> type)
+	{
+		return type.getName().replace('.', '/');
+	}
+
+	/**
+	 * Writes a public constructor calling the superclass's no-argument
+	 * constructor.
+	 * 
+	 * @throws IOException
+	 */
+	void addConstructor() throws IOException
+	{
+		final Code code = new Code(this, 1, 1);
+		code.varInsn(ALOAD, 0);
+		code.invoke(INVOKESPECIAL, this.superName, "<init>", "()V", 0);
+		code.op(RETURN);
+		addMethod("<init>", "()V", code);
+	}
+
+	/**
+	 * Writes a public method.
+	 * 
+	 * @param methodName
+	 * @param descriptor
+	 * @param code
+	 * @throws IOException
+	 */
+	void addMethod(final String methodName, final String descriptor, final Code code) throws IOException
+	{
+		final DataOutputStream out = new DataOutputStream(this.methods);
+		final byte[] attribute = code.toAttribute();
+		out.writeShort(PUBLIC);
+		out.writeShort(utf8(methodName));
+		out.writeShort(utf8(descriptor));
+		out.writeShort(1);
+		out.writeShort(utf8("Code"));
+		out.writeInt(attribute.length);
+		out.write(attribute);
+		this.methodCount++;
+	}
+
+	/**
+	 * Starts the code of a method.
+	 * 
+	 * @param maxStack
+	 * @param maxLocals
+	 * @return the code to write instructions to.
+	 */
+	Code newCode(final int maxStack, final int maxLocals)
+	{
+		return new Code(this, maxStack, maxLocals);
+	}
+
+	/**
+	 * @return the class file.
+	 * @throws IOException
+	 */
+	byte[] toByteArray() throws IOException
+	{
+		final int thisClass = classRef(this.name);
+		final int superClass = classRef(this.superName);
+		final int[] interfaceRefs = new int[this.interfaces.length];
+
+		for(int i = 0; i < interfaceRefs.length; i++)
+		{
+			interfaceRefs[i] = classRef(this.interfaces[i]);
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(MAJOR_VERSION);
+		out.writeShort(this.constantCount);
+		out.write(this.constantPool.toByteArray());
+		out.writeShort(CLASS_ACCESS);
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(interfaceRefs.length);
+
+		for(final int interfaceRef : interfaceRefs)
+		{
+			out.writeShort(interfaceRef);
+		}
+
+		out.writeShort(0);
+		out.writeShort(this.methodCount);
+		out.write(this.methods.toByteArray());
+		out.writeShort(0);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param internalName
+	 * @return the index of the class constant.
+	 */
+	int classRef(final String internalName)
+	{
+		final String key = "Class " + internalName;
+		final Integer index = this.constants.get(key);
+
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		final int nameIndex = utf8(internalName);
+		return add(key, 7, nameIndex, -1);
+	}
+
+	/**
+	 * @param value
+	 * @return the index of the integer constant.
+	 */
+	int integer(final int value)
+	{
+		final String key = "Integer " + value;
+		final Integer index = this.constants.get(key);
+
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		final int added = this.constantCount++;
+		final DataOutputStream out = new DataOutputStream(this.constantPool);
+
+		try
+		{
+			out.writeByte(3);
+			out.writeInt(value);
+		}
+		catch(final IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		this.constants.put(key, Integer.valueOf(added));
+		return added;
+	}
+
+	/**
+	 * @param owner
+	 *        internal name of the declaring class.
+	 * @param methodName
+	 * @param descriptor
+	 * @param isInterface
+	 * @return the index of the method reference constant.
+	 */
+	int methodRef(final String owner, final String methodName, final String descriptor, final boolean isInterface)
+	{
+		final String key = (isInterface ? "InterfaceMethod " : "Method ") + owner + "." + methodName + descriptor;
+		final Integer index = this.constants.get(key);
+
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		final int classIndex = classRef(owner);
+		final int nameAndType = nameAndType(methodName, descriptor);
+		return add(key, isInterface ? 11 : 10, classIndex, nameAndType);
+	}
+
+	/**
+	 * @param value
+	 * @return the index of the UTF-8 constant.
+	 */
+	int utf8(final String value)
+	{
+		final String key = "Utf8 " + value;
+		final Integer index = this.constants.get(key);
+
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		final int added = this.constantCount++;
+		final DataOutputStream out = new DataOutputStream(this.constantPool);
+
+		try
+		{
+			out.writeByte(1);
+			out.writeUTF(value);
+		}
+		catch(final IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		this.constants.put(key, Integer.valueOf(added));
+		return added;
+	}
+
+	/**
+	 * Adds a constant made of a tag and one or two constant indexes.
+	 * 
+	 * @param key
+	 * @param tag
+	 * @param first
+	 * @param second
+	 *        the second index, or -1 if there is none.
+	 * @return the index of the constant.
+	 */
+	private int add(final String key, final int tag, final int first, final int second)
+	{
+		final int added = this.constantCount++;
+		final DataOutputStream out = new DataOutputStream(this.constantPool);
+
+		try
+		{
+			out.writeByte(tag);
+			out.writeShort(first);
+
+			if(second >= 0)
+			{
+				out.writeShort(second);
+			}
+		}
+		catch(final IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		this.constants.put(key, Integer.valueOf(added));
+		return added;
+	}
+
+	/**
+	 * @param methodName
+	 * @param descriptor
+	 * @return the index of the name and type constant.
+	 */
+	private int nameAndType(final String methodName, final String descriptor)
+	{
+		final String key = "NameAndType " + methodName + descriptor;
+		final Integer index = this.constants.get(key);
+
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		final int nameIndex = utf8(methodName);
+		final int descriptorIndex = utf8(descriptor);
+		return add(key, 12, nameIndex, descriptorIndex);
+	}
+}
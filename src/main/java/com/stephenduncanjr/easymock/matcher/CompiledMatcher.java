@@ -0,0 +1,49 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+/**
+ * Property comparison generated for one bean class and one list of
+ * properties, calling the getters directly. Implemented only by classes that
+ * {@link GeneratedMatchers} defines at runtime; public so that those classes,
+ * defined in their own class loaders, can implement it.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface CompiledMatcher
+{
+	/**
+	 * Compares the properties of the argument with the expected values, in
+	 * order, stopping at the first that differs.
+	 * 
+	 * @param actual
+	 *        the argument, an instance of exactly the class this comparison was
+	 *        generated for.
+	 * @param expected
+	 *        the expected values.
+	 * @param bits
+	 *        the bits of the expected primitive values, or <code>null</code>
+	 *        if there are none.
+	 * @param mismatch
+	 *        array of length 1 that receives the value read for the
+	 *        property that differs, or the exception thrown.
+	 * @return the index of the property that differs, -1 if all match, or
+	 *         <code>-2 - index</code> if reading or comparing the property at
+	 *         the index threw.
+	 */
+	int match(Object actual, Object[] expected, long[] bits, Object[] mismatch);
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compares expected and actual property values, comparing arrays by content
+ * rather than identity. Primitive arrays are compared with the bulk
+ * {@link Arrays} comparisons, without boxing elements, and a
+ * <code>byte[]</code> can match a {@link ByteBuffer} with the same remaining
+ * content; buffers compare their remaining content with
+ * <code>equals</code>, and byte arrays are wrapped rather than copied to
+ * compare them with one. An {@link IterableContent} matches by walking the
+ * actual elements.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class ContentEquality
+{
+	/**
+	 * Disables object creation.
+	 */
+	private ContentEquality()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * @param expected
+	 *        the expected value.
+	 * @return whether the value is compared by content rather than with its
+	 *         own <code>equals</code>.
+	 */
+	static boolean comparesContent(final Object expected)
+	{
+		return expected != null && (expected.getClass().isArray() || expected instanceof Buffer || expected instanceof IterableContent);
+	}
+
+	/**
+	 * @param expected
+	 * @param actual
+	 * @return whether the values are equal, arrays by content.
+	 */
+	static boolean equal(final Object expected, final Object actual)
+	{
+		if(expected == actual)
+		{
+			return true;
+		}
+		else if(expected == null || actual == null)
+		{
+			return false;
+		}
+		else if(expected instanceof IterableContent)
+		{
+			return ((IterableContent) expected).matches(actual);
+		}
+		else if(expected instanceof byte[] && actual instanceof ByteBuffer)
+		{
+			return ByteBuffer.wrap((byte[]) expected).equals(actual);
+		}
+		else if(expected instanceof ByteBuffer && actual instanceof byte[])
+		{
+			return expected.equals(ByteBuffer.wrap((byte[]) actual));
+		}
+		else if(expected instanceof Object[])
+		{
+			return actual instanceof Object[] && Arrays.deepEquals((Object[]) expected, (Object[]) actual);
+		}
+		else if(expected.getClass().isArray())
+		{
+			return expected.getClass() == actual.getClass() && primitiveArraysEqual(expected, actual);
+		}
+
+		return expected.equals(actual);
+	}
+
+	/**
+	 * @param expected
+	 * @param actual
+	 *        an array of the same primitive component type.
+	 * @return whether the arrays have equal elements.
+	 */
+	static boolean primitiveArraysEqual(final Object expected, final Object actual)
+	{
+		if(expected instanceof byte[])
+		{
+			return Arrays.equals((byte[]) expected, (byte[]) actual);
+		}
+		else if(expected instanceof int[])
+		{
+			return Arrays.equals((int[]) expected, (int[]) actual);
+		}
+		else if(expected instanceof char[])
+		{
+			return Arrays.equals((char[]) expected, (char[]) actual);
+		}
+		else if(expected instanceof long[])
+		{
+			return Arrays.equals((long[]) expected, (long[]) actual);
+		}
+		else if(expected instanceof double[])
+		{
+			return Arrays.equals((double[]) expected, (double[]) actual);
+		}
+		else if(expected instanceof float[])
+		{
+			return Arrays.equals((float[]) expected, (float[]) actual);
+		}
+		else if(expected instanceof short[])
+		{
+			return Arrays.equals((short[]) expected, (short[]) actual);
+		}
+
+		return Arrays.equals((boolean[]) expected, (boolean[]) actual);
+	}
+}
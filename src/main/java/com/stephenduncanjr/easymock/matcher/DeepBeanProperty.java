@@ -0,0 +1,418 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.easymock.IArgumentMatcher;
+
+/**
+ * Matches an object graph property by property. Nested beans are compared by
+ * their readable properties, lists and arrays element by element, and maps
+ * entry by entry; everything else, including JDK value types, with
+ * <code>equals</code>. The graph is walked with an explicit work stack, and
+ * each pair of expected and actual objects is compared once, so cyclic and
+ * shared references are handled in a single linear pass.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class DeepBeanProperty implements IArgumentMatcher
+{
+	/**
+	 * A pair of expected and actual values still to be compared.
+	 */
+	private static class Comparison
+	{
+		/** The actual value. */
+		final Object actual;
+
+		/** Depth of the values below the argument, starting at 1. */
+		final int depth;
+
+		/** The expected value. */
+		final Object expected;
+
+		/**
+		 * @param expected
+		 * @param actual
+		 * @param depth
+		 */
+		Comparison(final Object expected, final Object actual, final int depth)
+		{
+			this.expected = expected;
+			this.actual = actual;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Identity of a pair of expected and actual values, for the visited set.
+	 */
+	private static class Visit
+	{
+		/** The actual value. */
+		private final Object actual;
+
+		/** The expected value. */
+		private final Object expected;
+
+		/**
+		 * @param expected
+		 * @param actual
+		 */
+		Visit(final Object expected, final Object actual)
+		{
+			this.expected = expected;
+			this.actual = actual;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj)
+		{
+			return obj instanceof Visit && ((Visit) obj).expected == this.expected && ((Visit) obj).actual == this.actual;
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return 31 * System.identityHashCode(this.expected) + System.identityHashCode(this.actual);
+		}
+	}
+
+	/** Depth limit meaning the whole graph is compared. */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	/** Values to match against, in the order of the property paths. */
+	private final Object[] expectedValues;
+
+	/** Ignored property names by class. */
+	private final Map<Class<?>, ? extends Collection<String>> ignored;
+
+	/** Layouts of the nested classes compared so far. */
+	private final ConcurrentMap<Class<?>, PropertyLayout> layouts = new ConcurrentHashMap<Class<?>, PropertyLayout>();
+
+	/** Depth at which values are compared with <code>equals</code>. */
+	private final int maxDepth;
+
+	/** Parsed paths of the top-level properties to match. */
+	private final PropertyPath[] propertyPaths;
+
+	/**
+	 * Creates a new matcher for the given top-level property values.
+	 * 
+	 * @param expectedProperties
+	 *        map of top-level property names to expected values.
+	 * @param maxDepth
+	 *        the depth at which values are compared with <code>equals</code>
+	 *        instead of property by property; 1 compares only the top-level
+	 *        values with <code>equals</code>.
+	 * @param ignored
+	 *        property names to leave out, by the class declaring them; the
+	 *        names also apply to subclasses.
+	 */
+	public DeepBeanProperty(final Map<String, ?> expectedProperties, final int maxDepth, final Map<Class<?>, ? extends Collection<String>> ignored)
+	{
+		super();
+
+		if(maxDepth < 1)
+		{
+			throw new IllegalArgumentException("Depth limit must be at least 1: " + maxDepth);
+		}
+
+		this.maxDepth = maxDepth;
+		this.ignored = ignored;
+		this.propertyPaths = new PropertyPath[expectedProperties.size()];
+		this.expectedValues = new Object[expectedProperties.size()];
+
+		int i = 0;
+
+		for(final Entry<String, ?> entry : expectedProperties.entrySet())
+		{
+			this.propertyPaths[i] = new PropertyPath(entry.getKey());
+			this.expectedValues[i] = entry.getValue();
+			i++;
+		}
+	}
+
+	/**
+	 * Gets the names ignored for the given class under the given rules.
+	 * 
+	 * @param type
+	 * @param ignored
+	 *        property names to leave out, by the class declaring them.
+	 * @return the names ignored for the class and its superclasses and
+	 *         interfaces.
+	 */
+	public static Set<String> ignoredProperties(final Class<?> type, final Map<Class<?>, ? extends Collection<String>> ignored)
+	{
+		final Set<String> names = new HashSet<String>();
+
+		for(final Entry<Class<?>, ? extends Collection<String>> entry : ignored.entrySet())
+		{
+			if(entry.getKey().isAssignableFrom(type))
+			{
+				names.addAll(entry.getValue());
+			}
+		}
+
+		return names;
+	}
+
+	/**
+	 * @param type
+	 * @return whether values of the type are compared with <code>equals</code>
+	 *         rather than property by property.
+	 */
+	private static boolean isValueType(final Class<?> type)
+	{
+		if(type.isPrimitive() || type.isEnum() || Number.class.isAssignableFrom(type) || CharSequence.class.isAssignableFrom(type) || Date.class.isAssignableFrom(type))
+		{
+			return true;
+		}
+
+		final String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.");
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#appendTo(java.lang.StringBuffer)
+	 */
+	public void appendTo(final StringBuffer buffer)
+	{
+		buffer.append("propertyDeepEq(");
+
+		for(int i = 0; i < this.propertyPaths.length; i++)
+		{
+			buffer.append(this.propertyPaths[i]);
+			buffer.append("=");
+			buffer.append(this.expectedValues[i]);
+			buffer.append(", ");
+		}
+
+		if(this.propertyPaths.length > 0)
+		{
+			buffer.setLength(buffer.length() - 2);
+		}
+
+		buffer.append(")");
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#matches(java.lang.Object)
+	 */
+	public boolean matches(final Object actual)
+	{
+		if(actual == null)
+		{
+			return this.propertyPaths.length == 0;
+		}
+
+		try
+		{
+			final List<Comparison> stack = new ArrayList<Comparison>();
+
+			for(int i = this.propertyPaths.length - 1; i >= 0; i--)
+			{
+				stack.add(new Comparison(this.expectedValues[i], this.propertyPaths[i].getValue(actual), 1));
+			}
+
+			return compare(stack);
+		}
+		catch(IllegalAccessException e)
+		{
+			return false;
+		}
+		catch(InvocationTargetException e)
+		{
+			return false;
+		}
+		catch(NoSuchMethodException e)
+		{
+			return false;
+		}
+		catch(RuntimeException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Compares the pairs on the stack, and the pairs they expand into, until
+	 * one differs or the stack is empty.
+	 * 
+	 * @param stack
+	 * @return whether all pairs matched.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	private boolean compare(final List<Comparison> stack) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		final Set<Visit> visited = new HashSet<Visit>();
+
+		while(!stack.isEmpty())
+		{
+			final Comparison comparison = stack.remove(stack.size() - 1);
+			final Object expected = comparison.expected;
+			final Object actual = comparison.actual;
+
+			if(expected == actual)
+			{
+				continue;
+			}
+
+			if(expected == null || actual == null || actual == PropertyAccessors.NO_SUCH_PROPERTY)
+			{
+				return false;
+			}
+
+			if(comparison.depth >= this.maxDepth || isValueType(expected.getClass()) && !(expected instanceof List) && !(expected instanceof Map))
+			{
+				if(!ContentEquality.equal(expected, actual))
+				{
+					return false;
+				}
+			}
+			else if(visited.add(new Visit(expected, actual)) && !expand(comparison, stack))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Pushes the nested pairs of a list, array, map or bean comparison.
+	 * 
+	 * @param comparison
+	 * @param stack
+	 * @return <code>false</code> if the values already differ in shape.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	private boolean expand(final Comparison comparison, final List<Comparison> stack) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		final Object expected = comparison.expected;
+		final Object actual = comparison.actual;
+		final int depth = comparison.depth + 1;
+
+		if(expected instanceof List)
+		{
+			if(!(actual instanceof List) || ((List<?>) expected).size() != ((List<?>) actual).size())
+			{
+				return false;
+			}
+
+			final Iterator<?> actualElements = ((List<?>) actual).iterator();
+
+			for(final Object element : (List<?>) expected)
+			{
+				stack.add(new Comparison(element, actualElements.next(), depth));
+			}
+		}
+		else if(expected.getClass().isArray())
+		{
+			if(expected.getClass().getComponentType().isPrimitive())
+			{
+				return expected.getClass() == actual.getClass() && ContentEquality.primitiveArraysEqual(expected, actual);
+			}
+
+			if(!(actual instanceof Object[]) || ((Object[]) expected).length != ((Object[]) actual).length)
+			{
+				return false;
+			}
+
+			for(int i = 0; i < ((Object[]) expected).length; i++)
+			{
+				stack.add(new Comparison(((Object[]) expected)[i], ((Object[]) actual)[i], depth));
+			}
+		}
+		else if(expected instanceof Map)
+		{
+			if(!(actual instanceof Map) || ((Map<?, ?>) expected).size() != ((Map<?, ?>) actual).size())
+			{
+				return false;
+			}
+
+			for(final Entry<?, ?> entry : ((Map<?, ?>) expected).entrySet())
+			{
+				if(!((Map<?, ?>) actual).containsKey(entry.getKey()))
+				{
+					return false;
+				}
+
+				stack.add(new Comparison(entry.getValue(), ((Map<?, ?>) actual).get(entry.getKey()), depth));
+			}
+		}
+		else
+		{
+			final PropertyLayout layout = layoutFor(expected.getClass());
+
+			if(layout.size() == 0)
+			{
+				return ContentEquality.equal(expected, actual);
+			}
+
+			for(int i = 0; i < layout.size(); i++)
+			{
+				final Object actualValue = PropertyAccessors.forProperty(actual.getClass(), layout.getPropertyName(i)).getValue(actual);
+				stack.add(new Comparison(layout.getValue(expected, i), actualValue, depth));
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the layout of a nested class, less its ignored properties.
+	 * 
+	 * @param type
+	 * @return the layout.
+	 */
+	private PropertyLayout layoutFor(final Class<?> type)
+	{
+		PropertyLayout layout = this.layouts.get(type);
+
+		if(layout == null)
+		{
+			layout = PropertyLayout.forClass(type, this.ignored.isEmpty() ? Collections.<String> emptySet() : ignoredProperties(type, this.ignored));
+			this.layouts.put(type, layout);
+		}
+
+		return layout;
+	}
+}
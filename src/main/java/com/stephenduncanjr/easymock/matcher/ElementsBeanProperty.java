@@ -0,0 +1,299 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IArgumentMatcher;
+
+/**
+ * Matches a collection or array argument by applying a {@link BeanProperty}
+ * to its elements, requiring either every element or at least one element to
+ * match. Evaluation stops at the first element that decides the result.
+ * Arguments with at least {@link MatcherConfiguration#getParallelThreshold()}
+ * elements are split into chunks that are matched on the common fork/join
+ * pool, each chunk with a copy of the element matcher, so that no matcher is
+ * used by two threads at once. The copies are kept for later matches. Once a
+ * parallel match fails, the element that decided it is matched again with
+ * the element matcher, so that the failure is described as for a sequential
+ * match.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class ElementsBeanProperty implements IArgumentMatcher
+{
+	/**
+	 * Matches a range of elements, splitting it while it is larger than a
+	 * chunk.
+	 */
+	private class Chunk extends RecursiveTask<Boolean>
+	{
+		/** Serial version. */
+		private static final long serialVersionUID = 1L;
+
+		/** Set once any chunk has decided the result. */
+		private final AtomicBoolean decided;
+
+		/** The elements. */
+		private final List<?> elements;
+
+		/** Index of the element that decided the result, or -1. */
+		private final AtomicInteger deciding;
+
+		/** The first index, inclusive. */
+		private final int from;
+
+		/** Largest range matched without splitting. */
+		private final int size;
+
+		/** The last index, exclusive. */
+		private final int to;
+
+		/**
+		 * @param elements
+		 * @param from
+		 * @param to
+		 * @param size
+		 * @param decided
+		 * @param deciding
+		 */
+		Chunk(final List<?> elements, final int from, final int to, final int size, final AtomicBoolean decided, final AtomicInteger deciding)
+		{
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.size = size;
+			this.decided = decided;
+			this.deciding = deciding;
+		}
+
+		/**
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected Boolean compute()
+		{
+			final boolean every = ElementsBeanProperty.this.every;
+
+			if(this.decided.get())
+			{
+				return Boolean.valueOf(every);
+			}
+
+			if(this.to - this.from <= this.size)
+			{
+				BeanProperty matcher = ElementsBeanProperty.this.copies.poll();
+
+				if(matcher == null)
+				{
+					matcher = ElementsBeanProperty.this.elementMatcher.copy();
+				}
+
+				try
+				{
+					return Boolean.valueOf(matchesRange(matcher, this.elements, this.from, this.to, this.decided, this.deciding));
+				}
+				finally
+				{
+					ElementsBeanProperty.this.copies.offer(matcher);
+				}
+			}
+
+			final int middle = (this.from + this.to) >>> 1;
+			final Chunk upper = new Chunk(this.elements, middle, this.to, this.size, this.decided, this.deciding);
+			upper.fork();
+
+			final boolean lowerResult = new Chunk(this.elements, this.from, middle, this.size, this.decided, this.deciding).compute().booleanValue();
+			final boolean upperResult = upper.join().booleanValue();
+
+			return Boolean.valueOf(every ? lowerResult && upperResult : lowerResult || upperResult);
+		}
+	}
+
+	/** Number of chunks per thread, to even out uneven element costs. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** Copies of the element matcher not in use by a chunk. */
+	private final Queue<BeanProperty> copies = new ConcurrentLinkedQueue<BeanProperty>();
+
+	/** The matcher applied to each element. */
+	private final BeanProperty elementMatcher;
+
+	/** Whether every element must match, rather than any element. */
+	private final boolean every;
+
+	/** Element count from which matching is parallel. */
+	private final int parallelThreshold;
+
+	/**
+	 * Creates a new matcher.
+	 * 
+	 * @param elementMatcher
+	 *        the matcher to apply to each element.
+	 * @param every
+	 *        <code>true</code> if every element must match,
+	 *        <code>false</code> if any element must match.
+	 */
+	public ElementsBeanProperty(final BeanProperty elementMatcher, final boolean every)
+	{
+		super();
+		this.elementMatcher = elementMatcher;
+		this.every = every;
+		this.parallelThreshold = MatcherConfiguration.getParallelThreshold();
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#appendTo(java.lang.StringBuffer)
+	 */
+	public void appendTo(final StringBuffer buffer)
+	{
+		buffer.append(this.every ? "each(" : "any(");
+		this.elementMatcher.appendTo(buffer);
+		buffer.append(")");
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#matches(java.lang.Object)
+	 */
+	public boolean matches(final Object actual)
+	{
+		final List<?> elements;
+
+		if(actual instanceof List && actual instanceof RandomAccess)
+		{
+			elements = (List<?>) actual;
+		}
+		else if(actual instanceof Collection)
+		{
+			if(((Collection<?>) actual).size() < this.parallelThreshold)
+			{
+				return matchesSequentially((Collection<?>) actual);
+			}
+
+			elements = new ArrayList<Object>((Collection<?>) actual);
+		}
+		else if(actual instanceof Object[])
+		{
+			elements = Arrays.asList((Object[]) actual);
+		}
+		else
+		{
+			return false;
+		}
+
+		if(elements.isEmpty() || elements.size() < this.parallelThreshold || ForkJoinPool.getCommonPoolParallelism() == 1)
+		{
+			return matchesRange(this.elementMatcher, elements, 0, elements.size(), null, null);
+		}
+
+		return matchesInParallel(elements);
+	}
+
+	/**
+	 * @param elements
+	 * @return whether the elements match, checked in iteration order.
+	 */
+	private boolean matchesSequentially(final Collection<?> elements)
+	{
+		for(final Object element : elements)
+		{
+			if(this.elementMatcher.matches(element) != this.every)
+			{
+				return !this.every;
+			}
+		}
+
+		return this.every;
+	}
+
+	/**
+	 * Matches a range of elements, stopping early once the result is decided
+	 * here or by another chunk.
+	 * 
+	 * @param matcher
+	 *        the element matcher, or a copy used only by this thread.
+	 * @param elements
+	 * @param from
+	 *        the first index, inclusive.
+	 * @param to
+	 *        the last index, exclusive.
+	 * @param decided
+	 *        set once any chunk has decided the result, or <code>null</code>.
+	 * @param deciding
+	 *        set to the index of the element deciding the result, or
+	 *        <code>null</code>.
+	 * @return whether the range matches on its own.
+	 */
+	private boolean matchesRange(final BeanProperty matcher, final List<?> elements, final int from, final int to, final AtomicBoolean decided, final AtomicInteger deciding)
+	{
+		for(int i = from; i < to; i++)
+		{
+			if(matcher.matches(elements.get(i)) != this.every)
+			{
+				if(decided != null)
+				{
+					decided.set(true);
+					deciding.compareAndSet(-1, i);
+				}
+
+				return !this.every;
+			}
+
+			if(decided != null && (i & 63) == 0 && decided.get())
+			{
+				break;
+			}
+		}
+
+		return this.every;
+	}
+
+	/**
+	 * Matches the elements in chunks on the common pool, then describes a
+	 * failure with the element matcher.
+	 * 
+	 * @param elements
+	 * @return whether the elements match.
+	 */
+	private boolean matchesInParallel(final List<?> elements)
+	{
+		final AtomicBoolean decided = new AtomicBoolean();
+		final AtomicInteger deciding = new AtomicInteger(-1);
+		final int chunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+		final int chunkSize = (elements.size() + chunks - 1) / chunks;
+		final boolean result = ForkJoinPool.commonPool().invoke(new Chunk(elements, 0, elements.size(), chunkSize, decided, deciding)).booleanValue();
+
+		if(!result)
+		{
+			// Without a match for any, the last element describes the failure, as sequentially
+			final int failing = this.every ? deciding.get() : elements.size() - 1;
+			this.elementMatcher.matches(elements.get(failing));
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The expected values of a matcher, with the primitive ones also kept as
+ * bits so they can be compared without boxing the actual value. The bits and
+ * primitive types are only allocated if there are primitive values, so
+ * values without any cost a single array. Large strings, lists, sets and maps
+ * can also be fingerprinted, so that most actual values that differ are
+ * rejected without running <code>equals</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class ExpectedValues
+{
+	/**
+	 * What an equal value must have in common with a large expected value,
+	 * checked in constant time: the size, and for strings also the hash
+	 * code, which strings cache.
+	 */
+	private static class Fingerprint
+	{
+		/** The hash code, for strings. */
+		final int hash;
+
+		/** String, List, Set or Map, the kind of value the size applies to. */
+		final Class<?> kind;
+
+		/** The length or size. */
+		final int size;
+
+		/**
+		 * @param kind
+		 * @param size
+		 * @param hash
+		 */
+		Fingerprint(final Class<?> kind, final int size, final int hash)
+		{
+			this.kind = kind;
+			this.size = size;
+			this.hash = hash;
+		}
+
+		/**
+		 * @param value
+		 *        the expected value.
+		 * @param threshold
+		 *        the smallest length or size to fingerprint.
+		 * @return the fingerprint, or <code>null</code> if the value is not
+		 *         fingerprinted.
+		 */
+		static Fingerprint of(final Object value, final int threshold)
+		{
+			final Class<?> kind;
+
+			if(value instanceof String)
+			{
+				kind = String.class;
+			}
+			else if(value instanceof List)
+			{
+				kind = List.class;
+			}
+			else if(value instanceof Set)
+			{
+				kind = Set.class;
+			}
+			else if(value instanceof Map)
+			{
+				kind = Map.class;
+			}
+			else
+			{
+				return null;
+			}
+
+			final int size = sizeOf(value);
+			return size < threshold ? null : new Fingerprint(kind, size, kind == String.class ? value.hashCode() : 0);
+		}
+
+		/**
+		 * @param value
+		 *        a string, collection or map.
+		 * @return its length or size.
+		 */
+		private static int sizeOf(final Object value)
+		{
+			if(value instanceof String)
+			{
+				return ((String) value).length();
+			}
+			else if(value instanceof Collection)
+			{
+				return ((Collection<?>) value).size();
+			}
+
+			return ((Map<?, ?>) value).size();
+		}
+
+		/**
+		 * @param actual
+		 * @return <code>false</code> if the actual value cannot equal the
+		 *         expected one.
+		 */
+		boolean admits(final Object actual)
+		{
+			if(!this.kind.isInstance(actual))
+			{
+				return true;
+			}
+
+			return sizeOf(actual) == this.size && (this.kind != String.class || actual.hashCode() == this.hash);
+		}
+	}
+
+	/**
+	 * Bits of the primitive values, by index, or <code>null</code> if there
+	 * are none.
+	 */
+	private final long[] bits;
+
+	/**
+	 * Fingerprints of the large values, or <code>null</code> where not
+	 * fingerprinted; <code>null</code> itself if there are none.
+	 */
+	private final Fingerprint[] fingerprints;
+
+	/**
+	 * Primitive types of the values, or <code>null</code> where not
+	 * primitive; <code>null</code> itself if there are none.
+	 */
+	private final Class<?>[] primitiveTypes;
+
+	/** The values. */
+	private final Object[] values;
+
+	/**
+	 * Creates the expected values, fingerprinting values at least as large as
+	 * {@link MatcherConfiguration#getFingerprintThreshold()}.
+	 * 
+	 * @param values
+	 */
+	ExpectedValues(final Object[] values)
+	{
+		this.values = values;
+		long[] primitiveBits = null;
+		Class<?>[] types = null;
+		Fingerprint[] valueFingerprints = null;
+		final int threshold = MatcherConfiguration.getFingerprintThreshold();
+
+		for(int i = 0; i < values.length; i++)
+		{
+			final Class<?> type = PrimitiveValues.primitiveTypeOf(values[i]);
+
+			if(type != null)
+			{
+				if(types == null)
+				{
+					primitiveBits = new long[values.length];
+					types = new Class<?>[values.length];
+				}
+
+				types[i] = type;
+				primitiveBits[i] = PrimitiveValues.toBits(values[i]);
+			}
+			else if(threshold != Integer.MAX_VALUE)
+			{
+				final Fingerprint fingerprint = Fingerprint.of(values[i], threshold);
+
+				if(fingerprint != null)
+				{
+					if(valueFingerprints == null)
+					{
+						valueFingerprints = new Fingerprint[values.length];
+					}
+
+					valueFingerprints[i] = fingerprint;
+				}
+			}
+		}
+
+		this.bits = primitiveBits;
+		this.primitiveTypes = types;
+		this.fingerprints = valueFingerprints;
+	}
+
+	/**
+	 * Checks the fingerprint of the value at the index, if it has one,
+	 * against an actual value.
+	 * 
+	 * @param index
+	 * @param actual
+	 * @return <code>false</code> if the actual value cannot equal the
+	 *         expected one; <code>true</code> if it may.
+	 */
+	boolean admits(final int index, final Object actual)
+	{
+		return this.fingerprints == null || this.fingerprints[index] == null || this.fingerprints[index].admits(actual);
+	}
+
+	/**
+	 * @return the bits of the primitive values, shared and not to be modified,
+	 *         or <code>null</code> if there are none.
+	 */
+	long[] getBitArray()
+	{
+		return this.bits;
+	}
+
+	/**
+	 * @param index
+	 * @return the bits of the primitive value at the index.
+	 */
+	long getBits(final int index)
+	{
+		return this.bits[index];
+	}
+
+	/**
+	 * @return whether any value is fingerprinted.
+	 */
+	boolean hasFingerprints()
+	{
+		return this.fingerprints != null;
+	}
+
+	/**
+	 * @param index
+	 * @return the primitive type of the value at the index, or
+	 *         <code>null</code>.
+	 */
+	Class<?> getPrimitiveType(final int index)
+	{
+		return this.primitiveTypes == null ? null : this.primitiveTypes[index];
+	}
+
+	/**
+	 * @param index
+	 * @return the value at the index.
+	 */
+	Object getValue(final int index)
+	{
+		return this.values[index];
+	}
+
+	/**
+	 * @return the values, shared and not to be modified.
+	 */
+	Object[] getValueArray()
+	{
+		return this.values;
+	}
+}
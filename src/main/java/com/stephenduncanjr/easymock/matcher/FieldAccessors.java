@@ -0,0 +1,222 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves and caches {@link PropertyAccessor}s that read instance fields
+ * directly, bypassing getters. A name refers to the field of that name
+ * declared by the class or its nearest superclass declaring one; fields of
+ * any visibility are read.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class FieldAccessors
+{
+	/**
+	 * Accessor that reads a field.
+	 */
+	private static class FieldAccessor implements PropertyAccessor
+	{
+		/** The accessible field. */
+		final Field field;
+
+		/** Reader of the field. */
+		final MemberReader reader;
+
+		/**
+		 * @param field
+		 */
+		FieldAccessor(final Field field)
+		{
+			this.field = field;
+			this.reader = new MemberReader(field);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.reader.read(bean);
+		}
+	}
+
+	/**
+	 * Accessor that reads a field of a primitive type without boxing it.
+	 */
+	private static class PrimitiveFieldAccessor extends FieldAccessor implements PrimitivePropertyAccessor
+	{
+		/**
+		 * @param field
+		 */
+		PrimitiveFieldAccessor(final Field field)
+		{
+			super(field);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PrimitivePropertyAccessor#getBits(java.lang.Object)
+		 */
+		public long getBits(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.reader.readBits(bean);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PrimitivePropertyAccessor#getPrimitiveType()
+		 */
+		public Class<?> getPrimitiveType()
+		{
+			return this.field.getType();
+		}
+	}
+
+	/** Resolved accessors by class and field name. */
+	private static final ClassCache<ConcurrentMap<String, PropertyAccessor>> CACHE = new ClassCache<ConcurrentMap<String, PropertyAccessor>>("fields");
+
+	/**
+	 * Disables object creation.
+	 */
+	private FieldAccessors()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * Gets the accessor for the named field on the given class, resolving it
+	 * on first use.
+	 * 
+	 * @param type
+	 *        the runtime class of the objects to read.
+	 * @param name
+	 *        the field name.
+	 * @return the accessor, which returns
+	 *         {@link PropertyAccessors#NO_SUCH_PROPERTY} if the class has no
+	 *         accessible instance field of that name.
+	 */
+	public static PropertyAccessor forField(final Class<?> type, final String name)
+	{
+		if(name == null)
+		{
+			return PropertyAccessors.MISSING;
+		}
+
+		ConcurrentMap<String, PropertyAccessor> accessors = CACHE.get(type);
+
+		if(accessors == null)
+		{
+			accessors = CACHE.putIfAbsent(type, new ConcurrentHashMap<String, PropertyAccessor>());
+		}
+
+		PropertyAccessor accessor = accessors.get(name);
+
+		if(accessor == null)
+		{
+			accessor = resolve(type, name);
+			final PropertyAccessor existing = accessors.putIfAbsent(name, accessor);
+
+			if(existing != null)
+			{
+				accessor = existing;
+			}
+		}
+
+		return accessor;
+	}
+
+	/**
+	 * Gets the names of the instance fields of the given class and its
+	 * superclasses, superclass fields first and each name once, leaving out
+	 * synthetic fields.
+	 * 
+	 * @param type
+	 * @return the field names.
+	 */
+	public static List<String> fieldNames(final Class<?> type)
+	{
+		final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+
+		for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+		{
+			hierarchy.add(c);
+		}
+
+		Collections.reverse(hierarchy);
+
+		final List<String> names = new ArrayList<String>();
+		final Set<String> seen = new HashSet<String>();
+
+		for(final Class<?> c : hierarchy)
+		{
+			for(final Field field : c.getDeclaredFields())
+			{
+				if(!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic())
+				{
+					if(seen.add(field.getName()))
+					{
+						names.add(field.getName());
+					}
+				}
+			}
+		}
+
+		return names;
+	}
+
+	/**
+	 * Resolves the accessor for the named field on the given class.
+	 * 
+	 * @param type
+	 * @param name
+	 * @return the accessor.
+	 */
+	private static PropertyAccessor resolve(final Class<?> type, final String name)
+	{
+		for(Class<?> c = type; c != null; c = c.getSuperclass())
+		{
+			for(final Field field : c.getDeclaredFields())
+			{
+				if(name.equals(field.getName()) && !Modifier.isStatic(field.getModifiers()))
+				{
+					try
+					{
+						field.setAccessible(true);
+					}
+					catch(final RuntimeException e)
+					{
+						return PropertyAccessors.MISSING;
+					}
+
+					return field.getType().isPrimitive() ? new PrimitiveFieldAccessor(field) : new FieldAccessor(field);
+				}
+			}
+		}
+
+		return PropertyAccessors.MISSING;
+	}
+}
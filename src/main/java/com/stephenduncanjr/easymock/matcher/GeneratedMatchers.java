@@ -0,0 +1,504 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.AALOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.AASTORE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ALOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ASTORE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.CHECKCAST;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.DLOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.DSTORE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.FLOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.FSTORE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.I2L;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ICONST_0;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.IFEQ;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.IFNE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.IFNULL;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.IF_ACMPEQ;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ILOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.INVOKEINTERFACE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.INVOKESTATIC;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.INVOKEVIRTUAL;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.IRETURN;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ISTORE;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.ISUB;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.LALOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.LCMP;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.LLOAD;
+import static com.stephenduncanjr.easymock.matcher.ClassFileWriter.LSTORE;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a {@link CompiledMatcher} class per bean class and list of
+ * properties, whose code calls each getter with a direct
+ * <code>invokevirtual</code> or <code>invokeinterface</code> and compares the
+ * results inline, so that the JIT compiler can inline the whole match. Each
+ * class is defined in its own class loader, a child of the bean's, so it can
+ * be unloaded with the bean class. Generation is skipped, and matchers fall
+ * back to reflection, for properties that are not plain public getters. An
+ * exception thrown while a property is read or compared is caught by the
+ * generated code and returned with the index of the property.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class GeneratedMatchers
+{
+	/**
+	 * Cache key of a list of property names and the primitive types of their
+	 * expected values.
+	 */
+	private static class Key
+	{
+		/** The property names. */
+		private final String[] names;
+
+		/** Primitive types of the expected values, or <code>null</code>s. */
+		private final Class<?>[] primitiveTypes;
+
+		/**
+		 * @param names
+		 * @param primitiveTypes
+		 */
+		Key(final String[] names, final Class<?>[] primitiveTypes)
+		{
+			this.names = names;
+			this.primitiveTypes = primitiveTypes;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj)
+		{
+			return obj instanceof Key && Arrays.equals(this.names, ((Key) obj).names) && Arrays.equals(this.primitiveTypes, ((Key) obj).primitiveTypes);
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return 31 * Arrays.hashCode(this.names) + Arrays.hashCode(this.primitiveTypes);
+		}
+	}
+
+	/**
+	 * Class loader for one generated class, seeing the bean's classes and
+	 * {@link CompiledMatcher}.
+	 */
+	private static class Loader extends ClassLoader
+	{
+		/**
+		 * @param parent
+		 *        the bean's class loader.
+		 */
+		Loader(final ClassLoader parent)
+		{
+			super(parent);
+		}
+
+		/**
+		 * @param name
+		 * @param bytes
+		 * @return the defined class.
+		 */
+		Class<?> define(final String name, final byte[] bytes)
+		{
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+		/**
+		 * @see java.lang.ClassLoader#loadClass(java.lang.String, boolean)
+		 */
+		@Override
+		protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException
+		{
+			return name.equals(CompiledMatcher.class.getName()) ? CompiledMatcher.class : super.loadClass(name, resolve);
+		}
+	}
+
+	/**
+	 * Outcome of generating a comparison, cached so that generation is
+	 * attempted once per key.
+	 */
+	private static class Outcome
+	{
+		/** The comparison, or <code>null</code> if none could be generated. */
+		final CompiledMatcher matcher;
+
+		/**
+		 * @param matcher
+		 */
+		Outcome(final CompiledMatcher matcher)
+		{
+			this.matcher = matcher;
+		}
+	}
+
+	/** Generation outcomes by bean class and key. */
+	private static final ClassCache<ConcurrentMap<Key, Outcome>> CACHE = new ClassCache<ConcurrentMap<Key, Outcome>>("generated matchers");
+
+	/** Outcome of keys for which no class could be generated. */
+	private static final Outcome UNAVAILABLE = new Outcome(null);
+
+	/** Descriptor of the generated method. */
+	private static final String MATCH_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;[J[Ljava/lang/Object;)I";
+
+	/** Most properties a generated class compares, keeping code small. */
+	private static final int MAX_PROPERTIES = 256;
+
+	/** Counter for unique class names. */
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	/** Local variable holding the value read, when it is an object. */
+	private static final int ACTUAL_VALUE = 8;
+
+	/** Local variable holding the index of the property being compared. */
+	private static final int CURRENT_INDEX = 5;
+
+	/** Local variable holding the expected value. */
+	private static final int EXPECTED_VALUE = 9;
+
+	/** Local variable holding the value read, when it is primitive. */
+	private static final int PRIMITIVE_VALUE = 6;
+
+	/**
+	 * Disables object creation.
+	 */
+	private GeneratedMatchers()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * Gets the generated comparison of the given properties for the given
+	 * class, generating it on first use.
+	 * 
+	 * @param type
+	 *        the exact class of the arguments.
+	 * @param paths
+	 *        the properties.
+	 * @param expected
+	 *        the expected values, whose primitive types are compiled in.
+	 * @return the comparison, or <code>null</code> if one cannot be generated,
+	 *         or an expected value is compared by content or fingerprinted.
+	 */
+	static CompiledMatcher forClass(final Class<?> type, final PropertyPath[] paths, final ExpectedValues expected)
+	{
+		if(expected.hasFingerprints())
+		{
+			return null;
+		}
+
+		final String[] names = new String[paths.length];
+		final Class<?>[] primitiveTypes = new Class<?>[paths.length];
+
+		for(int i = 0; i < paths.length; i++)
+		{
+			if(ContentEquality.comparesContent(expected.getValue(i)))
+			{
+				return null;
+			}
+
+			names[i] = paths[i].toString();
+			primitiveTypes[i] = expected.getPrimitiveType(i);
+		}
+
+		ConcurrentMap<Key, Outcome> outcomes = CACHE.get(type);
+
+		if(outcomes == null)
+		{
+			outcomes = CACHE.putIfAbsent(type, new ConcurrentHashMap<Key, Outcome>());
+		}
+
+		final Key key = new Key(names, primitiveTypes);
+		Outcome outcome = outcomes.get(key);
+
+		if(outcome == null)
+		{
+			outcome = generate(type, paths, primitiveTypes);
+			outcomes.putIfAbsent(key, outcome);
+		}
+
+		return outcome.matcher;
+	}
+
+	/**
+	 * Generates, defines and instantiates the comparison.
+	 * 
+	 * @param type
+	 * @param paths
+	 * @param primitiveTypes
+	 * @return the comparison, or {@link #UNAVAILABLE} if none can be
+	 *         generated.
+	 */
+	private static Outcome generate(final Class<?> type, final PropertyPath[] paths, final Class<?>[] primitiveTypes)
+	{
+		if(paths.length > MAX_PROPERTIES || paths.length == 0 || type.isArray() || type.isPrimitive())
+		{
+			return UNAVAILABLE;
+		}
+
+		final Method[] getters = new Method[paths.length];
+
+		for(int i = 0; i < paths.length; i++)
+		{
+			final PropertyAccessor accessor = paths[i].isFields() ? null : paths[i].singleAccessor(type);
+			getters[i] = accessor == null ? null : PropertyAccessors.readMethodOf(accessor);
+
+			if(getters[i] == null || !Modifier.isPublic(getters[i].getModifiers()) || !Modifier.isPublic(getters[i].getDeclaringClass().getModifiers()))
+			{
+				return UNAVAILABLE;
+			}
+		}
+
+		final String name = GeneratedMatchers.class.getName() + "$" + NEXT_ID.incrementAndGet();
+
+		try
+		{
+			final byte[] bytes = write(name.replace('.', '/'), getters, primitiveTypes);
+			return new Outcome((CompiledMatcher) new Loader(type.getClassLoader()).define(name, bytes).getDeclaredConstructor().newInstance());
+		}
+		catch(final IOException e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final LinkageError e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final InstantiationException e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final IllegalAccessException e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final InvocationTargetException e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final NoSuchMethodException e)
+		{
+			return UNAVAILABLE;
+		}
+		catch(final RuntimeException e)
+		{
+			return UNAVAILABLE;
+		}
+	}
+
+	/**
+	 * Writes the class file of a comparison.
+	 * 
+	 * @param internalName
+	 * @param getters
+	 * @param primitiveTypes
+	 * @return the class file.
+	 * @throws IOException
+	 */
+	private static byte[] write(final String internalName, final Method[] getters, final Class<?>[] primitiveTypes) throws IOException
+	{
+		final ClassFileWriter writer = new ClassFileWriter(internalName, "java/lang/Object", ClassFileWriter.internalName(CompiledMatcher.class));
+		writer.addConstructor();
+
+		final ClassFileWriter.Code code = writer.newCode(8, 10);
+		final int start = code.newLabel();
+		final int handler = code.newLabel();
+
+		code.op(ICONST_0);
+		code.varInsn(ISTORE, CURRENT_INDEX);
+		code.mark(start);
+
+		for(int i = 0; i < getters.length; i++)
+		{
+			final Class<?> returnType = getters[i].getReturnType();
+			final int next = code.newLabel();
+
+			code.pushInt(i);
+			code.varInsn(ISTORE, CURRENT_INDEX);
+
+			code.varInsn(ALOAD, 1);
+			code.classInsn(CHECKCAST, ClassFileWriter.internalName(getters[i].getDeclaringClass()));
+			code.invoke(getters[i].getDeclaringClass().isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL, ClassFileWriter.internalName(getters[i].getDeclaringClass()), getters[i].getName(), "()" + ClassFileWriter.descriptor(returnType), 0);
+
+			if(returnType.isPrimitive() && returnType == primitiveTypes[i])
+			{
+				code.varInsn(storeOpcode(returnType), PRIMITIVE_VALUE);
+				code.varInsn(loadOpcode(returnType), PRIMITIVE_VALUE);
+				writeToBits(code, returnType);
+				code.varInsn(ALOAD, 3);
+				code.pushInt(i);
+				code.op(LALOAD);
+				code.op(LCMP);
+				code.jump(IFEQ, next);
+
+				code.varInsn(ALOAD, 4);
+				code.op(ICONST_0);
+				code.varInsn(loadOpcode(returnType), PRIMITIVE_VALUE);
+				writeBox(code, returnType);
+				code.op(AASTORE);
+			}
+			else
+			{
+				final int differs = code.newLabel();
+
+				if(returnType.isPrimitive())
+				{
+					writeBox(code, returnType);
+				}
+
+				code.varInsn(ASTORE, ACTUAL_VALUE);
+				code.varInsn(ALOAD, 2);
+				code.pushInt(i);
+				code.op(AALOAD);
+				code.varInsn(ASTORE, EXPECTED_VALUE);
+
+				code.varInsn(ALOAD, EXPECTED_VALUE);
+				code.varInsn(ALOAD, ACTUAL_VALUE);
+				code.jump(IF_ACMPEQ, next);
+				code.varInsn(ALOAD, EXPECTED_VALUE);
+				code.jump(IFNULL, differs);
+				code.varInsn(ALOAD, EXPECTED_VALUE);
+				code.varInsn(ALOAD, ACTUAL_VALUE);
+				code.invoke(INVOKEVIRTUAL, "java/lang/Object", "equals", "(Ljava/lang/Object;)Z", 1);
+				code.jump(IFNE, next);
+
+				code.mark(differs);
+				code.varInsn(ALOAD, 4);
+				code.op(ICONST_0);
+				code.varInsn(ALOAD, ACTUAL_VALUE);
+				code.op(AASTORE);
+			}
+
+			code.pushInt(i);
+			code.op(IRETURN);
+			code.mark(next);
+		}
+
+		code.pushInt(-1);
+		code.op(IRETURN);
+
+		code.mark(handler);
+		code.catchAll(start, handler, handler);
+		code.varInsn(ASTORE, ACTUAL_VALUE);
+		code.varInsn(ALOAD, 4);
+		code.op(ICONST_0);
+		code.varInsn(ALOAD, ACTUAL_VALUE);
+		code.op(AASTORE);
+		code.pushInt(-2);
+		code.varInsn(ILOAD, CURRENT_INDEX);
+		code.op(ISUB);
+		code.op(IRETURN);
+
+		writer.addMethod("match", MATCH_DESCRIPTOR, code);
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes the conversion of a primitive value on the stack to its bits, as
+	 * a <code>long</code>.
+	 * 
+	 * @param code
+	 * @param type
+	 */
+	private static void writeToBits(final ClassFileWriter.Code code, final Class<?> type)
+	{
+		if(type == Double.TYPE)
+		{
+			code.invoke(INVOKESTATIC, "java/lang/Double", "doubleToLongBits", "(D)J", 2);
+		}
+		else if(type == Float.TYPE)
+		{
+			code.invoke(INVOKESTATIC, "java/lang/Float", "floatToIntBits", "(F)I", 1);
+			code.op(I2L);
+		}
+		else if(type != Long.TYPE)
+		{
+			code.op(I2L);
+		}
+	}
+
+	/**
+	 * Writes the boxing of a primitive value on the stack.
+	 * 
+	 * @param code
+	 * @param type
+	 */
+	private static void writeBox(final ClassFileWriter.Code code, final Class<?> type)
+	{
+		final Class<?> wrapper = PrimitiveValues.fromBits(type, 0).getClass();
+		code.invoke(INVOKESTATIC, ClassFileWriter.internalName(wrapper), "valueOf", "(" + ClassFileWriter.descriptor(type) + ")" + ClassFileWriter.descriptor(wrapper), 0);
+	}
+
+	/**
+	 * @param type
+	 * @return the load opcode for a local of the primitive type.
+	 */
+	private static int loadOpcode(final Class<?> type)
+	{
+		if(type == Long.TYPE)
+		{
+			return LLOAD;
+		}
+		else if(type == Double.TYPE)
+		{
+			return DLOAD;
+		}
+		else if(type == Float.TYPE)
+		{
+			return FLOAD;
+		}
+
+		return ILOAD;
+	}
+
+	/**
+	 * @param type
+	 * @return the store opcode for a local of the primitive type.
+	 */
+	private static int storeOpcode(final Class<?> type)
+	{
+		if(type == Long.TYPE)
+		{
+			return LSTORE;
+		}
+		else if(type == Double.TYPE)
+		{
+			return DSTORE;
+		}
+		else if(type == Float.TYPE)
+		{
+			return FSTORE;
+		}
+
+		return ISTORE;
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An expected property value that matches any {@link Iterable},
+ * {@link Stream} or object array with the same elements, rather than an
+ * equal object. Use it in place of a collection as a value passed to the
+ * matchers:
+ * 
+ * <pre>
+ * propertyEq(Order.class, &quot;lines&quot;, IterableContent.inOrder(expectedLines))
+ * </pre>
+ * 
+ * The actual elements are walked once, without being copied, and the
+ * comparison stops at the first element that cannot match, so getters
+ * returning lazy or freshly built iterables are not materialized; a stream
+ * is consumed by the comparison. In order, elements are compared as property
+ * values are, arrays by content. In any order, the distinct expected
+ * elements are numbered and counted by hash when the value is created;
+ * collections and arrays of another size are rejected at once, and
+ * otherwise each actual element is looked up and counted down in a copy of
+ * the counts array, so the comparison takes linear time. Elements must then
+ * have consistent <code>equals</code> and <code>hashCode</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class IterableContent
+{
+	/**
+	 * Number of times each distinct expected element occurs, by its number,
+	 * if in any order.
+	 */
+	private final int[] counts;
+
+	/** The expected elements. */
+	private final Iterable<?> elements;
+
+	/** Number of each distinct expected element, if in any order. */
+	private final Map<Object, Integer> numbers;
+
+	/** Number of expected elements, if in any order. */
+	private final int size;
+
+	/**
+	 * @param elements
+	 * @param anyOrder
+	 *        whether to count the elements for comparison in any order.
+	 */
+	private IterableContent(final Iterable<?> elements, final boolean anyOrder)
+	{
+		if(elements == null)
+		{
+			throw new IllegalArgumentException("Expected elements must not be null");
+		}
+
+		this.elements = elements;
+
+		if(anyOrder)
+		{
+			this.numbers = new HashMap<Object, Integer>();
+			int[] counted = new int[8];
+			int count = 0;
+
+			for(final Object element : elements)
+			{
+				Integer number = this.numbers.get(element);
+
+				if(number == null)
+				{
+					number = Integer.valueOf(this.numbers.size());
+					this.numbers.put(element, number);
+
+					if(number.intValue() == counted.length)
+					{
+						counted = Arrays.copyOf(counted, counted.length * 2);
+					}
+				}
+
+				counted[number.intValue()]++;
+				count++;
+			}
+
+			this.counts = Arrays.copyOf(counted, this.numbers.size());
+			this.size = count;
+		}
+		else
+		{
+			this.counts = null;
+			this.numbers = null;
+			this.size = -1;
+		}
+	}
+
+	/**
+	 * @param elements
+	 *        the expected elements, in any order.
+	 * @return a value matching iterables, streams and arrays with the same
+	 *         elements, each occurring the same number of times.
+	 */
+	public static IterableContent inAnyOrder(final Iterable<?> elements)
+	{
+		return new IterableContent(elements, true);
+	}
+
+	/**
+	 * @param elements
+	 *        the expected elements, in order.
+	 * @return a value matching iterables, streams and arrays with the same
+	 *         elements in the same order.
+	 */
+	public static IterableContent inOrder(final Iterable<?> elements)
+	{
+		return new IterableContent(elements, false);
+	}
+
+	/**
+	 * @param actual
+	 *        the actual property value.
+	 * @return its elements, or <code>null</code> if it is not an iterable, a
+	 *         stream or an object array.
+	 */
+	private static Iterator<?> iterate(final Object actual)
+	{
+		if(actual instanceof Iterable)
+		{
+			return ((Iterable<?>) actual).iterator();
+		}
+		else if(actual instanceof Stream)
+		{
+			return ((Stream<?>) actual).iterator();
+		}
+		else if(actual instanceof Object[])
+		{
+			return Arrays.asList((Object[]) actual).iterator();
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param actual
+	 *        the actual property value.
+	 * @return whether it has the expected elements.
+	 */
+	boolean matches(final Object actual)
+	{
+		if(this.counts != null && (actual instanceof Collection && ((Collection<?>) actual).size() != this.size || actual instanceof Object[] && ((Object[]) actual).length != this.size))
+		{
+			return false;
+		}
+
+		final Iterator<?> actualElements = iterate(actual);
+
+		if(actualElements == null)
+		{
+			return false;
+		}
+
+		return this.counts == null ? matchesInOrder(actualElements) : matchesInAnyOrder(actualElements);
+	}
+
+	/**
+	 * @param actualElements
+	 * @return whether the actual elements occur as often as the expected ones.
+	 */
+	private boolean matchesInAnyOrder(final Iterator<?> actualElements)
+	{
+		int[] remaining = null;
+		int count = 0;
+
+		while(actualElements.hasNext())
+		{
+			final Integer number = this.numbers.get(actualElements.next());
+
+			if(number == null)
+			{
+				return false;
+			}
+
+			if(remaining == null)
+			{
+				remaining = this.counts.clone();
+			}
+
+			if(remaining[number.intValue()]-- == 0)
+			{
+				return false;
+			}
+
+			count++;
+		}
+
+		return count == this.size;
+	}
+
+	/**
+	 * @param actualElements
+	 * @return whether the actual elements equal the expected ones in order.
+	 */
+	private boolean matchesInOrder(final Iterator<?> actualElements)
+	{
+		final Iterator<?> expectedElements = this.elements.iterator();
+
+		while(expectedElements.hasNext())
+		{
+			if(!actualElements.hasNext() || !ContentEquality.equal(expectedElements.next(), actualElements.next()))
+			{
+				return false;
+			}
+		}
+
+		return !actualElements.hasNext();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		final StringBuilder builder = new StringBuilder(this.counts == null ? "inOrder(" : "inAnyOrder(");
+		builder.append(this.elements);
+		builder.append(")");
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.easymock.IArgumentMatcher;
+
+/**
+ * Matches against a table of expected properties indexed by the value of one
+ * key property. The key property is read from the argument once and looked up
+ * in the table, and only the entry found is matched, so the cost of a match
+ * does not grow with the number of entries.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class KeyedBeanProperty implements IArgumentMatcher
+{
+	/** Matchers for the remaining properties, by key value. */
+	private final Map<Object, BeanProperty> entries;
+
+	/** Path of the key property. */
+	private final PropertyPath keyPath;
+
+	/**
+	 * Creates a new matcher.
+	 * 
+	 * @param keyProperty
+	 *        the name of the key property.
+	 * @param expectedProperties
+	 *        the expected properties of the arguments, by the value of their
+	 *        key property; primitive keys are given boxed.
+	 */
+	public KeyedBeanProperty(final String keyProperty, final Map<?, ? extends Map<String, ?>> expectedProperties)
+	{
+		super();
+		this.keyPath = new PropertyPath(keyProperty);
+		this.entries = new LinkedHashMap<Object, BeanProperty>(expectedProperties.size() * 4 / 3 + 1);
+
+		for(final Entry<?, ? extends Map<String, ?>> entry : expectedProperties.entrySet())
+		{
+			this.entries.put(entry.getKey(), new BeanProperty(entry.getValue()));
+		}
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#appendTo(java.lang.StringBuffer)
+	 */
+	public void appendTo(final StringBuffer buffer)
+	{
+		buffer.append("propEqByKey(");
+		buffer.append(this.keyPath);
+		buffer.append(", {");
+
+		for(final Entry<Object, BeanProperty> entry : this.entries.entrySet())
+		{
+			buffer.append(entry.getKey());
+			buffer.append("=");
+			entry.getValue().appendTo(buffer);
+			buffer.append(", ");
+		}
+
+		if(!this.entries.isEmpty())
+		{
+			buffer.setLength(buffer.length() - 2);
+		}
+
+		buffer.append("})");
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#matches(java.lang.Object)
+	 */
+	public boolean matches(final Object actual)
+	{
+		if(actual == null)
+		{
+			return false;
+		}
+
+		final Object key;
+
+		try
+		{
+			key = this.keyPath.getValue(actual);
+		}
+		catch(final IllegalAccessException e)
+		{
+			return false;
+		}
+		catch(final InvocationTargetException e)
+		{
+			return false;
+		}
+		catch(final NoSuchMethodException e)
+		{
+			return false;
+		}
+		catch(final RuntimeException e)
+		{
+			return false;
+		}
+
+		final BeanProperty entry = key == PropertyAccessors.NO_SUCH_PROPERTY ? null : this.entries.get(key);
+		return entry != null && entry.matches(actual);
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+/**
+ * Global switches for optional matcher behavior. Settings apply to matchers
+ * created after they are changed.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class MatcherConfiguration
+{
+	/** Default for {@link #getClassCacheSize()}. */
+	public static final int DEFAULT_CLASS_CACHE_SIZE = 4096;
+
+	/** Default for {@link #getParallelThreshold()}. */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+	/** Whether matchers reorder their properties to fail fast. */
+	private static volatile boolean adaptiveOrdering;
+
+	/** Number of classes each metadata cache holds. */
+	private static volatile int classCacheSize = DEFAULT_CLASS_CACHE_SIZE;
+
+	/** Which classes full metadata caches drop first. */
+	private static volatile EvictionPolicy evictionPolicy = EvictionPolicy.LEAST_RECENTLY_USED;
+
+	/** Smallest size of expected values that are fingerprinted. */
+	private static volatile int fingerprintThreshold = Integer.MAX_VALUE;
+
+	/** Whether matchers run generated code instead of reflection. */
+	private static volatile boolean generatedMatchers;
+
+	/** Listener new matchers report to, or <code>null</code>. */
+	private static volatile MatcherListener listener;
+
+	/** Element count from which collection arguments are matched in parallel. */
+	private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * Disables object creation.
+	 */
+	private MatcherConfiguration()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * @return the number of classes each metadata cache holds.
+	 */
+	public static int getClassCacheSize()
+	{
+		return classCacheSize;
+	}
+
+	/**
+	 * @return which classes full metadata caches drop first.
+	 */
+	public static EvictionPolicy getEvictionPolicy()
+	{
+		return evictionPolicy;
+	}
+
+	/**
+	 * @return whether new matchers reorder their properties to fail fast.
+	 */
+	public static boolean isAdaptiveOrdering()
+	{
+		return adaptiveOrdering;
+	}
+
+	/**
+	 * Sets whether new matchers track how often and how expensively each
+	 * property fails to match, and check the cheapest, most selective
+	 * properties first. The match result is the same either way.
+	 * 
+	 * @param adaptiveOrdering
+	 */
+	public static void setAdaptiveOrdering(final boolean adaptiveOrdering)
+	{
+		MatcherConfiguration.adaptiveOrdering = adaptiveOrdering;
+	}
+
+	/**
+	 * @return the smallest length or size of expected values that new
+	 *         matchers fingerprint.
+	 */
+	public static int getFingerprintThreshold()
+	{
+		return fingerprintThreshold;
+	}
+
+	/**
+	 * Sets the smallest length of strings, and size of lists, sets and maps,
+	 * that new matchers fingerprint when recording expected values. An actual
+	 * value whose size, or for strings whose cached hash code, differs from
+	 * the fingerprint is rejected without running <code>equals</code>. The
+	 * match result is the same either way.
+	 * 
+	 * @param fingerprintThreshold
+	 *        the length or size; {@link Integer#MAX_VALUE}, the default,
+	 *        disables fingerprinting.
+	 */
+	public static void setFingerprintThreshold(final int fingerprintThreshold)
+	{
+		MatcherConfiguration.fingerprintThreshold = fingerprintThreshold;
+	}
+
+	/**
+	 * @return the listener new matchers report to, or <code>null</code>.
+	 */
+	public static MatcherListener getListener()
+	{
+		return listener;
+	}
+
+	/**
+	 * Sets the listener that new matchers report their property reads, times,
+	 * results and fallbacks to. Instrumented matchers read the properties one
+	 * at a time, in the given order, so that each can be timed.
+	 * 
+	 * @param listener
+	 *        the listener, or <code>null</code> to turn instrumentation off.
+	 * @see MatcherStatistics#install()
+	 */
+	public static void setListener(final MatcherListener listener)
+	{
+		MatcherConfiguration.listener = listener;
+	}
+
+	/**
+	 * @return whether new matchers run generated code instead of reflection.
+	 */
+	public static boolean isGeneratedMatchers()
+	{
+		return generatedMatchers;
+	}
+
+	/**
+	 * Sets whether new matchers generate, per argument class, a class that
+	 * calls the matched getters directly, instead of invoking them
+	 * reflectively. Applies to matchers of public getters on public classes
+	 * without nested paths or adaptive ordering; other matchers, and
+	 * arguments for which generation fails, keep using reflection.
+	 * 
+	 * @param generatedMatchers
+	 */
+	public static void setGeneratedMatchers(final boolean generatedMatchers)
+	{
+		MatcherConfiguration.generatedMatchers = generatedMatchers;
+	}
+
+	/**
+	 * @return the element count from which collection arguments are matched
+	 *         on several threads.
+	 */
+	public static int getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the element count from which collection arguments are split across
+	 * the available processors when matching each or any element.
+	 * 
+	 * @param parallelThreshold
+	 *        the element count; {@link Integer#MAX_VALUE} disables parallel
+	 *        matching.
+	 * @throws IllegalArgumentException
+	 *         if the count is less than 1.
+	 */
+	public static void setParallelThreshold(final int parallelThreshold)
+	{
+		if(parallelThreshold < 1)
+		{
+			throw new IllegalArgumentException("Parallel threshold must be at least 1: " + parallelThreshold);
+		}
+
+		MatcherConfiguration.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Sets the number of classes each per-class metadata cache holds before
+	 * it starts dropping classes. Takes effect on the next insert into each
+	 * cache.
+	 * 
+	 * @param classCacheSize
+	 *        the number of classes.
+	 * @throws IllegalArgumentException
+	 *         if the size is less than 1.
+	 */
+	public static void setClassCacheSize(final int classCacheSize)
+	{
+		if(classCacheSize < 1)
+		{
+			throw new IllegalArgumentException("Class cache size must be at least 1: " + classCacheSize);
+		}
+
+		MatcherConfiguration.classCacheSize = classCacheSize;
+	}
+
+	/**
+	 * Sets which classes full per-class metadata caches drop first.
+	 * 
+	 * @param evictionPolicy
+	 */
+	public static void setEvictionPolicy(final EvictionPolicy evictionPolicy)
+	{
+		MatcherConfiguration.evictionPolicy = evictionPolicy;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+/**
+ * Receives instrumentation events from property matchers. Installed with
+ * {@link MatcherConfiguration#setListener(MatcherListener)}; matchers created
+ * while a listener is installed time each property they read and report to
+ * it. Implementations are called from the threads that match, possibly
+ * concurrently, and must be thread safe.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface MatcherListener
+{
+	/**
+	 * Called when reading a property falls back to a slower path: when the
+	 * getter threw and the property is treated as differing, or, once per
+	 * matcher and class, when no generated code could be used for the class
+	 * and reflection is used instead.
+	 * 
+	 * @param type
+	 *        the class of the argument.
+	 * @param property
+	 *        the property, or <code>null</code> for a whole-class fallback
+	 *        to reflection.
+	 * @param cause
+	 *        what the getter threw, or <code>null</code>.
+	 */
+	void fallback(Class<?> type, String property, Throwable cause);
+
+	/**
+	 * Called after a matcher has matched a non-null argument.
+	 * 
+	 * @param type
+	 *        the class of the argument.
+	 * @param matched
+	 *        whether the argument matched.
+	 */
+	void matched(Class<?> type, boolean matched);
+
+	/**
+	 * Called after a matcher has read and compared one property.
+	 * 
+	 * @param type
+	 *        the class of the argument.
+	 * @param property
+	 *        the property path.
+	 * @param matched
+	 *        whether the property had the expected value.
+	 * @param nanos
+	 *        the time taken to read and compare the property; generated code
+	 *        reads the properties in one call, whose time is divided evenly
+	 *        among the properties it read.
+	 */
+	void propertyRead(Class<?> type, String property, boolean matched, long nanos);
+}
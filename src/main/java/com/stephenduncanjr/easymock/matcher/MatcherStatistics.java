@@ -0,0 +1,354 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * {@link MatcherListener} that counts match calls, hits, misses, property
+ * reads, fallbacks and time per argument class and property, and exposes
+ * them, together with the metadata cache statistics, as a JMX MBean.
+ * Statistics are kept by class name, so they do not keep classes loaded.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class MatcherStatistics implements MatcherListener, MatcherStatisticsMBean
+{
+	/**
+	 * Counters for one class or property.
+	 */
+	private static class Counters
+	{
+		/** Match calls or property reads. */
+		final AtomicLong calls = new AtomicLong();
+
+		/** Fallbacks to slower paths. */
+		final AtomicLong fallbacks = new AtomicLong();
+
+		/** Matches or equal properties. */
+		final AtomicLong hits = new AtomicLong();
+
+		/** Nanoseconds spent reading properties. */
+		final AtomicLong nanos = new AtomicLong();
+
+		/**
+		 * @return the average nanoseconds per call.
+		 */
+		long averageNanos()
+		{
+			final long count = this.calls.get();
+			return count == 0 ? 0 : this.nanos.get() / count;
+		}
+
+		/**
+		 * Sets all counters to zero.
+		 */
+		void clear()
+		{
+			this.calls.set(0);
+			this.fallbacks.set(0);
+			this.hits.set(0);
+			this.nanos.set(0);
+		}
+
+		/**
+		 * @param name
+		 * @param timed
+		 *        whether to include times.
+		 * @return a line describing the counters.
+		 */
+		String describe(final String name, final boolean timed)
+		{
+			final long count = this.calls.get();
+			final long hitCount = this.hits.get();
+			final String line = name + " calls=" + count + " hits=" + hitCount + " misses=" + (count - hitCount) + " fallbacks=" + this.fallbacks.get();
+			return timed ? line + " nanos=" + this.nanos.get() + " avgNanos=" + averageNanos() : line;
+		}
+	}
+
+	/** Name the MBean is registered under by {@link #install()}. */
+	public static final String OBJECT_NAME = "com.stephenduncanjr.easymock:type=MatcherStatistics";
+
+	/** Counters by argument class name. */
+	private final ConcurrentMap<String, Counters> classes = new ConcurrentHashMap<String, Counters>();
+
+	/** Counters by argument class name and property path. */
+	private final ConcurrentMap<String, Counters> properties = new ConcurrentHashMap<String, Counters>();
+
+	/** Totals over all property reads. */
+	private final Counters propertyTotals = new Counters();
+
+	/** Totals over all match calls. */
+	private final Counters totals = new Counters();
+
+	/**
+	 * Creates statistics and installs them as the listener for new matchers,
+	 * registering them with the platform MBean server under
+	 * {@link #OBJECT_NAME} in place of any earlier statistics.
+	 * 
+	 * @return the installed statistics.
+	 * @throws IllegalStateException
+	 *         if the MBean cannot be registered.
+	 */
+	public static MatcherStatistics install()
+	{
+		final MatcherStatistics statistics = new MatcherStatistics();
+
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+
+			synchronized(MatcherStatistics.class)
+			{
+				if(server.isRegistered(name))
+				{
+					server.unregisterMBean(name);
+				}
+
+				server.registerMBean(statistics, name);
+			}
+		}
+		catch(final JMException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		MatcherConfiguration.setListener(statistics);
+		return statistics;
+	}
+
+	/**
+	 * @param counters
+	 * @param key
+	 * @return the counters for the key, created if needed.
+	 */
+	private static Counters counters(final ConcurrentMap<String, Counters> counters, final String key)
+	{
+		Counters existing = counters.get(key);
+
+		if(existing == null)
+		{
+			final Counters created = new Counters();
+			existing = counters.putIfAbsent(key, created);
+
+			if(existing == null)
+			{
+				existing = created;
+			}
+		}
+
+		return existing;
+	}
+
+	/**
+	 * @param counters
+	 * @param timed
+	 * @return one line per entry, sorted by name.
+	 */
+	private static String[] describe(final ConcurrentMap<String, Counters> counters, final boolean timed)
+	{
+		final List<String> lines = new ArrayList<String>();
+
+		for(final Entry<String, Counters> entry : counters.entrySet())
+		{
+			lines.add(entry.getValue().describe(entry.getKey(), timed));
+		}
+
+		Collections.sort(lines);
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherListener#fallback(java.lang.Class,
+	 *      java.lang.String, java.lang.Throwable)
+	 */
+	public void fallback(final Class<?> type, final String property, final Throwable cause)
+	{
+		this.totals.fallbacks.incrementAndGet();
+		counters(this.classes, type.getName()).fallbacks.incrementAndGet();
+
+		if(property != null)
+		{
+			counters(this.properties, type.getName() + "#" + property).fallbacks.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getCacheStatistics()
+	 */
+	public String[] getCacheStatistics()
+	{
+		final List<String> lines = new ArrayList<String>();
+
+		for(final ClassCache<?> cache : ClassCache.getCaches())
+		{
+			lines.add(cache.toString());
+		}
+
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getClassStatistics()
+	 */
+	public String[] getClassStatistics()
+	{
+		return describe(this.classes, false);
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getFallbackCount()
+	 */
+	public long getFallbackCount()
+	{
+		return this.totals.fallbacks.get();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getGetterInvocationCount()
+	 */
+	public long getGetterInvocationCount()
+	{
+		return this.propertyTotals.calls.get();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getHitCount()
+	 */
+	public long getHitCount()
+	{
+		return this.totals.hits.get();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getMatchCount()
+	 */
+	public long getMatchCount()
+	{
+		return this.totals.calls.get();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getMissCount()
+	 */
+	public long getMissCount()
+	{
+		return getMatchCount() - getHitCount();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getPropertyStatistics()
+	 */
+	public String[] getPropertyStatistics()
+	{
+		return describe(this.properties, true);
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#getTotalNanos()
+	 */
+	public long getTotalNanos()
+	{
+		return this.propertyTotals.nanos.get();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherListener#matched(java.lang.Class,
+	 *      boolean)
+	 */
+	public void matched(final Class<?> type, final boolean matched)
+	{
+		final Counters counters = counters(this.classes, type.getName());
+		counters.calls.incrementAndGet();
+		this.totals.calls.incrementAndGet();
+
+		if(matched)
+		{
+			counters.hits.incrementAndGet();
+			this.totals.hits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherListener#propertyRead(java.lang.Class,
+	 *      java.lang.String, boolean, long)
+	 */
+	public void propertyRead(final Class<?> type, final String property, final boolean matched, final long nanos)
+	{
+		final Counters counters = counters(this.properties, type.getName() + "#" + property);
+		counters.calls.incrementAndGet();
+		counters.nanos.addAndGet(nanos);
+		this.propertyTotals.calls.incrementAndGet();
+		this.propertyTotals.nanos.addAndGet(nanos);
+
+		if(matched)
+		{
+			counters.hits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#reset()
+	 */
+	public void reset()
+	{
+		this.classes.clear();
+		this.properties.clear();
+		this.propertyTotals.clear();
+		this.totals.clear();
+	}
+
+	/**
+	 * @see com.stephenduncanjr.easymock.matcher.MatcherStatisticsMBean#slowestGetters(int)
+	 */
+	public String[] slowestGetters(final int count)
+	{
+		final List<Entry<String, Counters>> entries = new ArrayList<Entry<String, Counters>>(this.properties.entrySet());
+
+		Collections.sort(entries, new Comparator<Entry<String, Counters>>()
+		{
+			public int compare(final Entry<String, Counters> a, final Entry<String, Counters> b)
+			{
+				final long difference = b.getValue().averageNanos() - a.getValue().averageNanos();
+				return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+			}
+		});
+
+		final int size = Math.min(Math.max(count, 0), entries.size());
+		final String[] lines = new String[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			lines[i] = entries.get(i).getValue().describe(entries.get(i).getKey(), true);
+		}
+
+		return lines;
+	}
+}
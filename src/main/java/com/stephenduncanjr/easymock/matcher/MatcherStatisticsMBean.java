@@ -0,0 +1,86 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+/**
+ * Management interface of {@link MatcherStatistics}.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface MatcherStatisticsMBean
+{
+	/**
+	 * @return one line per metadata cache, with its size, hits, misses and
+	 *         evictions.
+	 */
+	String[] getCacheStatistics();
+
+	/**
+	 * @return one line per argument class, with its match calls, hits,
+	 *         misses and fallbacks.
+	 */
+	String[] getClassStatistics();
+
+	/**
+	 * @return the number of fallbacks to slower paths.
+	 */
+	long getFallbackCount();
+
+	/**
+	 * @return the number of property reads.
+	 */
+	long getGetterInvocationCount();
+
+	/**
+	 * @return the number of arguments that matched.
+	 */
+	long getHitCount();
+
+	/**
+	 * @return the number of arguments matched.
+	 */
+	long getMatchCount();
+
+	/**
+	 * @return the number of arguments that did not match.
+	 */
+	long getMissCount();
+
+	/**
+	 * @return one line per class and property, with its reads, hits, misses,
+	 *         fallbacks and nanoseconds.
+	 */
+	String[] getPropertyStatistics();
+
+	/**
+	 * @return the nanoseconds spent reading and comparing properties.
+	 */
+	long getTotalNanos();
+
+	/**
+	 * Forgets all statistics.
+	 */
+	void reset();
+
+	/**
+	 * @param count
+	 *        the number of getters to list.
+	 * @return the properties with the most nanoseconds per read, slowest
+	 *         first, one line each.
+	 */
+	String[] slowestGetters(int count);
+}
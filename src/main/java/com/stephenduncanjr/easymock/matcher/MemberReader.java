@@ -0,0 +1,131 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Reads a field or calls a parameterless read method for the accessors.
+ * This is the baseline engine, using reflection; the multi-release jar
+ * replaces this class on Java 17 and later with one using method handles.
+ * Both report failures as reflection does. Primitive fields are read as bits
+ * without boxing them; reflection boxes the result of every read method, so
+ * their bits are taken from the wrapper.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class MemberReader
+{
+	/** The accessible field, or <code>null</code>. */
+	private final Field field;
+
+	/** The accessible read method, or <code>null</code>. */
+	private final Method readMethod;
+
+	/**
+	 * @param field
+	 *        the accessible field to read.
+	 */
+	MemberReader(final Field field)
+	{
+		this.field = field;
+		this.readMethod = null;
+	}
+
+	/**
+	 * @param readMethod
+	 *        the accessible read method to call.
+	 */
+	MemberReader(final Method readMethod)
+	{
+		this.field = null;
+		this.readMethod = readMethod;
+	}
+
+	/**
+	 * @return the name of this engine.
+	 */
+	static String engine()
+	{
+		return "reflection";
+	}
+
+	/**
+	 * @param bean
+	 * @return the value of the field, or returned by the read method.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 *         if the read method throws.
+	 */
+	Object read(final Object bean) throws IllegalAccessException, InvocationTargetException
+	{
+		return this.readMethod == null ? this.field.get(bean) : this.readMethod.invoke(bean);
+	}
+
+	/**
+	 * Reads a member of a primitive type as bits.
+	 * 
+	 * @param bean
+	 * @return the bits of the value, as
+	 *         {@link PrimitivePropertyAccessor#getBits(Object)} defines them.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 *         if the read method throws.
+	 */
+	long readBits(final Object bean) throws IllegalAccessException, InvocationTargetException
+	{
+		if(this.readMethod != null)
+		{
+			return PrimitiveValues.toBits(this.readMethod.invoke(bean));
+		}
+
+		final Class<?> type = this.field.getType();
+
+		if(type == Integer.TYPE)
+		{
+			return this.field.getInt(bean);
+		}
+		else if(type == Long.TYPE)
+		{
+			return this.field.getLong(bean);
+		}
+		else if(type == Boolean.TYPE)
+		{
+			return this.field.getBoolean(bean) ? 1 : 0;
+		}
+		else if(type == Double.TYPE)
+		{
+			return Double.doubleToLongBits(this.field.getDouble(bean));
+		}
+		else if(type == Character.TYPE)
+		{
+			return this.field.getChar(bean);
+		}
+		else if(type == Short.TYPE)
+		{
+			return this.field.getShort(bean);
+		}
+		else if(type == Byte.TYPE)
+		{
+			return this.field.getByte(bean);
+		}
+
+		return Float.floatToIntBits(this.field.getFloat(bean));
+	}
+}
@@ -0,0 +1,774 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.easymock.IArgumentMatcher;
+
+/**
+ * Matches arguments against a {@link PropertyPredicate}. The predicate is
+ * compiled once into a plan in which each distinct property has a slot, and
+ * the children of every and and or are ordered cheapest first, so that the
+ * cheap checks decide most mismatches. During a match each property is read
+ * at most once, when a predicate first needs it, and a predicate on a
+ * property that cannot be read does not hold, so the order only changes the
+ * work done, never the result. Numeric ranges and
+ * equalities on primitive properties compare the bits of the value; primitive
+ * fields are read as bits without boxing, and getters are too on Java 17,
+ * while earlier reflection boxes their results first.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class PredicateBeanProperty implements IArgumentMatcher
+{
+	/**
+	 * Equality with one value.
+	 */
+	private static class Equal extends Node
+	{
+		/** Bits of the expected value, if it is a primitive wrapper. */
+		private final long bits;
+
+		/** The expected value. */
+		private final Object expected;
+
+		/** Primitive type of the expected value, or <code>null</code>. */
+		private final Class<?> primitiveType;
+
+		/** Slot of the property. */
+		private final int slot;
+
+		/**
+		 * @param slot
+		 * @param expected
+		 */
+		Equal(final int slot, final Object expected)
+		{
+			super(2);
+			this.slot = slot;
+			this.expected = expected;
+			this.primitiveType = PrimitiveValues.primitiveTypeOf(expected);
+			this.bits = this.primitiveType == null ? 0 : PrimitiveValues.toBits(expected);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			if(this.primitiveType != null && reads.readPrimitive(this.slot) == this.primitiveType)
+			{
+				return reads.bits[this.slot] == this.bits;
+			}
+
+			final Object value = reads.value(this.slot);
+			return !reads.failed(this.slot) && ContentEquality.equal(this.expected, value);
+		}
+	}
+
+	/**
+	 * And or or of other predicates, cheapest first.
+	 */
+	private static class Junction extends Node
+	{
+		/** Whether this is an and. */
+		private final boolean and;
+
+		/** The children, cheapest first. */
+		private final Node[] children;
+
+		/**
+		 * @param and
+		 * @param children
+		 */
+		Junction(final boolean and, final Node[] children)
+		{
+			super(totalCost(children));
+			this.and = and;
+			this.children = children.clone();
+			Arrays.sort(this.children, BY_COST);
+		}
+
+		/**
+		 * @param children
+		 * @return the sum of the costs of the children.
+		 */
+		private static int totalCost(final Node[] children)
+		{
+			int cost = 0;
+
+			for(final Node child : children)
+			{
+				cost += child.cost;
+			}
+
+			return cost;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			for(final Node child : this.children)
+			{
+				if(child.test(reads) != this.and)
+				{
+					return !this.and;
+				}
+			}
+
+			return this.and;
+		}
+	}
+
+	/**
+	 * Membership in a set of values.
+	 */
+	private static class Member extends Node
+	{
+		/** The allowed arrays and buffers, compared by content. */
+		private final Object[] contentValues;
+
+		/** Slot of the property. */
+		private final int slot;
+
+		/** The other allowed values. */
+		private final Set<Object> values;
+
+		/**
+		 * @param slot
+		 * @param values
+		 */
+		Member(final int slot, final Object[] values)
+		{
+			super(3);
+			this.slot = slot;
+			this.values = new HashSet<Object>();
+
+			final List<Object> contentValues = new ArrayList<Object>();
+
+			for(final Object value : values)
+			{
+				if(ContentEquality.comparesContent(value))
+				{
+					contentValues.add(value);
+				}
+				else
+				{
+					this.values.add(value);
+				}
+			}
+
+			this.contentValues = contentValues.toArray();
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			final Object value = reads.value(this.slot);
+
+			if(reads.failed(this.slot))
+			{
+				return false;
+			}
+			else if(this.values.contains(value))
+			{
+				return true;
+			}
+
+			for(final Object contentValue : this.contentValues)
+			{
+				if(ContentEquality.equal(contentValue, value))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * Negation of another predicate.
+	 */
+	private static class Negation extends Node
+	{
+		/** The negated predicate. */
+		private final Node child;
+
+		/**
+		 * @param child
+		 */
+		Negation(final Node child)
+		{
+			super(child.cost);
+			this.child = child;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			return !this.child.test(reads);
+		}
+	}
+
+	/**
+	 * A compiled predicate of the plan.
+	 */
+	private abstract static class Node
+	{
+		/** Relative cost of evaluating the predicate. */
+		final int cost;
+
+		/**
+		 * @param cost
+		 */
+		Node(final int cost)
+		{
+			this.cost = cost;
+		}
+
+		/**
+		 * @param reads
+		 *        the properties of the argument.
+		 * @return whether the predicate holds.
+		 */
+		abstract boolean test(Reads reads);
+	}
+
+	/**
+	 * Null check.
+	 */
+	private static class Null extends Node
+	{
+		/** Slot of the property. */
+		private final int slot;
+
+		/**
+		 * @param slot
+		 */
+		Null(final int slot)
+		{
+			super(1);
+			this.slot = slot;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			final Object value = reads.value(this.slot);
+			return value == null && !reads.failed(this.slot);
+		}
+	}
+
+	/**
+	 * Inclusive range, either end of which may be open.
+	 */
+	private static class Range extends Node
+	{
+		/**
+		 * Whether the bounds are exactly representable as doubles, so that
+		 * floating point properties are compared as doubles.
+		 */
+		private final boolean floating;
+
+		/** Whether the bounds are integers, compared as longs. */
+		private final boolean integral;
+
+		/** The largest allowed value, or <code>null</code>. */
+		private final Object max;
+
+		/** The smallest allowed value, or <code>null</code>. */
+		private final Object min;
+
+		/** Whether the bounds are numbers, compared by value. */
+		private final boolean numeric;
+
+		/** Slot of the property. */
+		private final int slot;
+
+		/**
+		 * @param slot
+		 * @param min
+		 * @param max
+		 */
+		Range(final int slot, final Object min, final Object max)
+		{
+			super(3);
+			this.slot = slot;
+			this.min = min;
+			this.max = max;
+			this.numeric = (min == null || min instanceof Number) && (max == null || max instanceof Number);
+			this.integral = this.numeric && isIntegral(min) && isIntegral(max);
+			this.floating = this.numeric && isExactDouble(min) && isExactDouble(max);
+		}
+
+		/**
+		 * @param value
+		 * @param bound
+		 * @return the comparison of the numbers by value, as a
+		 *         <code>Comparable</code> returns it.
+		 */
+		private static int compareNumbers(final Number value, final Number bound)
+		{
+			if(isIntegral(value) && isIntegral(bound))
+			{
+				return compare(value.longValue(), bound.longValue());
+			}
+
+			final BigDecimal exactValue = toBigDecimal(value);
+			final BigDecimal exactBound = toBigDecimal(bound);
+
+			if(exactValue == null || exactBound == null)
+			{
+				// NaN and infinities order as Double.compare orders them
+				return Double.compare(value.doubleValue(), bound.doubleValue());
+			}
+
+			return exactValue.compareTo(exactBound);
+		}
+
+		/**
+		 * @param bound
+		 * @return whether the bound is open or a primitive wrapper whose value
+		 *         a double represents exactly.
+		 */
+		private static boolean isExactDouble(final Object bound)
+		{
+			return bound == null || bound instanceof Double || bound instanceof Float || bound instanceof Integer || bound instanceof Short || bound instanceof Byte;
+		}
+
+		/**
+		 * @param value
+		 * @return whether the value is a floating point NaN.
+		 */
+		private static boolean isNaN(final Object value)
+		{
+			return value instanceof Double && ((Double) value).isNaN() || value instanceof Float && ((Float) value).isNaN();
+		}
+
+		/**
+		 * @param bound
+		 * @return whether the bound is open or a primitive integer wrapper.
+		 */
+		private static boolean isIntegral(final Object bound)
+		{
+			return bound == null || bound instanceof Integer || bound instanceof Long || bound instanceof Short || bound instanceof Byte;
+		}
+
+		/**
+		 * @param value
+		 * @param bound
+		 * @return the comparison of the value with the bound, as a
+		 *         <code>Comparable</code> returns it.
+		 */
+		@SuppressWarnings("unchecked")
+		private static int compare(final Object value, final Object bound)
+		{
+			if(value instanceof Number && bound instanceof Number)
+			{
+				return compareNumbers((Number) value, (Number) bound);
+			}
+			else if(value instanceof Character && bound instanceof Number)
+			{
+				return compareNumbers(Integer.valueOf(((Character) value).charValue()), (Number) bound);
+			}
+
+			return ((Comparable<Object>) value).compareTo(bound);
+		}
+
+		/**
+		 * @param value
+		 * @param bound
+		 * @return the comparison of the longs.
+		 */
+		private static int compare(final long value, final long bound)
+		{
+			return value < bound ? -1 : (value == bound ? 0 : 1);
+		}
+
+		/**
+		 * @param number
+		 * @return the exact value of the number, or <code>null</code> if it
+		 *         has none.
+		 */
+		private static BigDecimal toBigDecimal(final Number number)
+		{
+			if(number instanceof BigDecimal)
+			{
+				return (BigDecimal) number;
+			}
+			else if(number instanceof BigInteger)
+			{
+				return new BigDecimal((BigInteger) number);
+			}
+			else if(isIntegral(number))
+			{
+				return BigDecimal.valueOf(number.longValue());
+			}
+			else if(number instanceof Double || number instanceof Float)
+			{
+				final double value = number.doubleValue();
+				return Double.isNaN(value) || Double.isInfinite(value) ? null : new BigDecimal(value);
+			}
+
+			try
+			{
+				return new BigDecimal(number.toString());
+			}
+			catch(final NumberFormatException e)
+			{
+				return null;
+			}
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Node#test(com.stephenduncanjr.easymock.matcher.PredicateBeanProperty.Reads)
+		 */
+		@Override
+		boolean test(final Reads reads)
+		{
+			if(this.numeric)
+			{
+				final Class<?> type = reads.readPrimitive(this.slot);
+
+				// Other combinations are compared exactly from the boxed value
+				if(this.integral && (type == Integer.TYPE || type == Long.TYPE || type == Short.TYPE || type == Byte.TYPE || type == Character.TYPE))
+				{
+					return testLong(reads.bits[this.slot]);
+				}
+				else if(this.floating && type == Double.TYPE)
+				{
+					return testDouble(Double.longBitsToDouble(reads.bits[this.slot]));
+				}
+				else if(this.floating && type == Float.TYPE)
+				{
+					return testDouble(Float.intBitsToFloat((int) reads.bits[this.slot]));
+				}
+			}
+
+			final Object value = reads.value(this.slot);
+
+			// NaN lies in no range, as on the primitive path
+			if(value == null || isNaN(value) || isNaN(this.min) || isNaN(this.max))
+			{
+				return false;
+			}
+
+			try
+			{
+				return (this.min == null || compare(value, this.min) >= 0) && (this.max == null || compare(value, this.max) <= 0);
+			}
+			catch(final ClassCastException e)
+			{
+				return false;
+			}
+		}
+
+		/**
+		 * @param value
+		 * @return whether the value lies between the numeric bounds.
+		 */
+		private boolean testDouble(final double value)
+		{
+			return (this.min == null || value >= ((Number) this.min).doubleValue()) && (this.max == null || value <= ((Number) this.max).doubleValue());
+		}
+
+		/**
+		 * @param value
+		 * @return whether the value lies between the integer bounds.
+		 */
+		private boolean testLong(final long value)
+		{
+			return (this.min == null || value >= ((Number) this.min).longValue()) && (this.max == null || value <= ((Number) this.max).longValue());
+		}
+	}
+
+	/**
+	 * The properties of one argument, read as the plan needs them.
+	 */
+	private static class Reads
+	{
+		/** Slot state: not read. */
+		private static final byte UNREAD = 0;
+
+		/** Slot state: value read. */
+		private static final byte VALUE = 1;
+
+		/** Slot state: bits read, value not boxed. */
+		private static final byte BITS = 2;
+
+		/** Slot state: bits read and value boxed. */
+		private static final byte BOTH = 3;
+
+		/** Slot state: the property could not be read. */
+		private static final byte FAILED = 4;
+
+		/** The argument. */
+		private final Object actual;
+
+		/** Bits of the primitive properties read. */
+		final long[] bits;
+
+		/** Paths of the properties, by slot. */
+		private final PropertyPath[] paths;
+
+		/** Primitive types of the properties read as bits. */
+		private final Class<?>[] primitiveTypes;
+
+		/** What has been read, by slot. */
+		private final byte[] states;
+
+		/** Values of the properties read. */
+		private final Object[] values;
+
+		/**
+		 * @param paths
+		 * @param actual
+		 */
+		Reads(final PropertyPath[] paths, final Object actual)
+		{
+			this.paths = paths;
+			this.actual = actual;
+			this.bits = new long[paths.length];
+			this.primitiveTypes = new Class<?>[paths.length];
+			this.states = new byte[paths.length];
+			this.values = new Object[paths.length];
+		}
+
+		/**
+		 * Reads a property as bits, unless it is not a single primitive
+		 * property or has been read as a value already.
+		 * 
+		 * @param slot
+		 * @return the primitive type, with the bits in {@link #bits}, or
+		 *         <code>null</code> if the property is not read as bits.
+		 */
+		Class<?> readPrimitive(final int slot)
+		{
+			if(this.states[slot] == UNREAD)
+			{
+				final PropertyAccessor accessor = this.paths[slot].singleAccessor(this.actual.getClass());
+
+				if(accessor instanceof PrimitivePropertyAccessor)
+				{
+					try
+					{
+						this.bits[slot] = ((PrimitivePropertyAccessor) accessor).getBits(this.actual);
+						this.primitiveTypes[slot] = ((PrimitivePropertyAccessor) accessor).getPrimitiveType();
+						this.states[slot] = BITS;
+					}
+					catch(final Exception e)
+					{
+						this.states[slot] = FAILED;
+					}
+				}
+			}
+
+			return this.states[slot] == BITS || this.states[slot] == BOTH ? this.primitiveTypes[slot] : null;
+		}
+
+		/**
+		 * @param slot
+		 * @return whether the property has been found not to be readable.
+		 */
+		boolean failed(final int slot)
+		{
+			return this.states[slot] == FAILED;
+		}
+
+		/**
+		 * Gets the value of a property, reading it if it has not been read.
+		 * 
+		 * @param slot
+		 * @return the value, or <code>null</code> if it cannot be read.
+		 */
+		Object value(final int slot)
+		{
+			final byte state = this.states[slot];
+
+			if(state == BITS)
+			{
+				this.values[slot] = PrimitiveValues.fromBits(this.primitiveTypes[slot], this.bits[slot]);
+				this.states[slot] = BOTH;
+			}
+			else if(state == UNREAD)
+			{
+				try
+				{
+					final Object value = this.paths[slot].getValue(this.actual);
+
+					if(value == PropertyAccessors.NO_SUCH_PROPERTY)
+					{
+						this.states[slot] = FAILED;
+					}
+					else
+					{
+						this.values[slot] = value;
+						this.states[slot] = VALUE;
+					}
+				}
+				catch(final Exception e)
+				{
+					this.states[slot] = FAILED;
+				}
+			}
+
+			return this.values[slot];
+		}
+	}
+
+	/** Orders nodes cheapest first. */
+	private static final Comparator<Node> BY_COST = new Comparator<Node>()
+	{
+		public int compare(final Node first, final Node second)
+		{
+			return first.cost - second.cost;
+		}
+	};
+
+	/** Paths of the properties, by slot. */
+	private final PropertyPath[] paths;
+
+	/** The compiled predicate. */
+	private final Node plan;
+
+	/** The predicate, as given. */
+	private final PropertyPredicate predicate;
+
+	/**
+	 * Creates a new matcher.
+	 * 
+	 * @param predicate
+	 *        the predicate arguments must satisfy.
+	 */
+	public PredicateBeanProperty(final PropertyPredicate predicate)
+	{
+		super();
+
+		if(predicate == null)
+		{
+			throw new IllegalArgumentException("Predicate must not be null");
+		}
+
+		this.predicate = predicate;
+
+		final Map<String, Integer> slots = new HashMap<String, Integer>();
+		final List<PropertyPath> slotPaths = new ArrayList<PropertyPath>();
+		this.plan = compile(predicate, slots, slotPaths);
+		this.paths = slotPaths.toArray(new PropertyPath[slotPaths.size()]);
+	}
+
+	/**
+	 * Compiles a predicate, assigning slots to the properties it reads.
+	 * 
+	 * @param predicate
+	 * @param slots
+	 *        the slots assigned, by property.
+	 * @param paths
+	 *        the paths of the properties, by slot.
+	 * @return the compiled predicate.
+	 */
+	private static Node compile(final PropertyPredicate predicate, final Map<String, Integer> slots, final List<PropertyPath> paths)
+	{
+		if(predicate.children != null)
+		{
+			final Node[] children = new Node[predicate.children.length];
+
+			for(int i = 0; i < children.length; i++)
+			{
+				children[i] = compile(predicate.children[i], slots, paths);
+			}
+
+			switch(predicate.kind)
+			{
+				case AND:
+					return new Junction(true, children);
+				case OR:
+					return new Junction(false, children);
+				default:
+					return new Negation(children[0]);
+			}
+		}
+
+		Integer slot = slots.get(predicate.property);
+
+		if(slot == null)
+		{
+			slot = Integer.valueOf(paths.size());
+			slots.put(predicate.property, slot);
+			paths.add(new PropertyPath(predicate.property));
+		}
+
+		switch(predicate.kind)
+		{
+			case EQ:
+				return new Equal(slot.intValue(), predicate.operands[0]);
+			case IN:
+				return new Member(slot.intValue(), predicate.operands);
+			case IS_NULL:
+				return new Null(slot.intValue());
+			default:
+				return new Range(slot.intValue(), predicate.operands[0], predicate.operands[1]);
+		}
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#appendTo(java.lang.StringBuffer)
+	 */
+	public void appendTo(final StringBuffer buffer)
+	{
+		buffer.append("propThat(");
+		buffer.append(this.predicate);
+		buffer.append(")");
+	}
+
+	/**
+	 * @see org.easymock.IArgumentMatcher#matches(java.lang.Object)
+	 */
+	public boolean matches(final Object actual)
+	{
+		if(actual == null)
+		{
+			return false;
+		}
+
+		return this.plan.test(new Reads(this.paths, actual));
+	}
+}
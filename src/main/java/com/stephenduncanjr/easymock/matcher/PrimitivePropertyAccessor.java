@@ -0,0 +1,51 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Accessor for a property of a primitive type, which can read the value as a
+ * <code>long</code>. The bits are the value itself for the integral types
+ * and <code>char</code>, 0 or 1 for <code>boolean</code>, and the IEEE bits
+ * for <code>float</code> and <code>double</code>, so that two values of the
+ * same type have equal bits exactly when their wrappers are
+ * <code>equals</code>. Fields are read without boxing; getters are called
+ * without boxing on Java 17 and later, where a method handle returning the
+ * bits is used, and reflectively, boxing the result, before.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface PrimitivePropertyAccessor extends PropertyAccessor
+{
+	/**
+	 * Reads the property value from the given bean as bits.
+	 * 
+	 * @param bean
+	 *        the bean to read from, an instance of the class this accessor was
+	 *        resolved for.
+	 * @return the bits of the property value.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	long getBits(Object bean) throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * @return the primitive type of the property.
+	 */
+	Class<?> getPrimitiveType();
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+/**
+ * Conversions between primitive wrappers and the bits used by
+ * {@link PrimitivePropertyAccessor}.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class PrimitiveValues
+{
+	/**
+	 * Disables object creation.
+	 */
+	private PrimitiveValues()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * @param type
+	 *        a primitive type.
+	 * @param bits
+	 *        the bits of a value of the type.
+	 * @return the wrapped value.
+	 */
+	static Object fromBits(final Class<?> type, final long bits)
+	{
+		if(type == Integer.TYPE)
+		{
+			return Integer.valueOf((int) bits);
+		}
+		else if(type == Long.TYPE)
+		{
+			return Long.valueOf(bits);
+		}
+		else if(type == Boolean.TYPE)
+		{
+			return Boolean.valueOf(bits != 0);
+		}
+		else if(type == Double.TYPE)
+		{
+			return Double.valueOf(Double.longBitsToDouble(bits));
+		}
+		else if(type == Character.TYPE)
+		{
+			return Character.valueOf((char) bits);
+		}
+		else if(type == Short.TYPE)
+		{
+			return Short.valueOf((short) bits);
+		}
+		else if(type == Byte.TYPE)
+		{
+			return Byte.valueOf((byte) bits);
+		}
+
+		return Float.valueOf(Float.intBitsToFloat((int) bits));
+	}
+
+	/**
+	 * @param value
+	 * @return the primitive type the value is a wrapper of, or
+	 *         <code>null</code> if it is not a wrapper.
+	 */
+	static Class<?> primitiveTypeOf(final Object value)
+	{
+		if(value instanceof Integer)
+		{
+			return Integer.TYPE;
+		}
+		else if(value instanceof Long)
+		{
+			return Long.TYPE;
+		}
+		else if(value instanceof Boolean)
+		{
+			return Boolean.TYPE;
+		}
+		else if(value instanceof Double)
+		{
+			return Double.TYPE;
+		}
+		else if(value instanceof Character)
+		{
+			return Character.TYPE;
+		}
+		else if(value instanceof Short)
+		{
+			return Short.TYPE;
+		}
+		else if(value instanceof Byte)
+		{
+			return Byte.TYPE;
+		}
+		else if(value instanceof Float)
+		{
+			return Float.TYPE;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param value
+	 *        a primitive wrapper.
+	 * @return the bits of the wrapped value.
+	 */
+	static long toBits(final Object value)
+	{
+		if(value instanceof Boolean)
+		{
+			return ((Boolean) value).booleanValue() ? 1 : 0;
+		}
+		else if(value instanceof Character)
+		{
+			return ((Character) value).charValue();
+		}
+		else if(value instanceof Double)
+		{
+			return Double.doubleToLongBits(((Double) value).doubleValue());
+		}
+		else if(value instanceof Float)
+		{
+			return Float.floatToIntBits(((Float) value).floatValue());
+		}
+
+		return ((Number) value).longValue();
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Reads one named property from beans of a single, already resolved class.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public interface PropertyAccessor
+{
+	/**
+	 * Reads the property value from the given bean.
+	 * 
+	 * @param bean
+	 *        the bean to read from, an instance of the class this accessor was
+	 *        resolved for.
+	 * @return the property value, or {@link PropertyAccessors#NO_SUCH_PROPERTY}
+	 *         if the bean has no readable property of this name.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	Object getValue(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException;
+}
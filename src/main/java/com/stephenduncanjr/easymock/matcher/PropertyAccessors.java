@@ -0,0 +1,551 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.beanutils.BeanUtilsBean;
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.beanutils.PropertyUtilsBean;
+
+/**
+ * Resolves and caches {@link PropertyAccessor}s per bean class, so that a
+ * property name is looked up once per class instead of on every read. Names
+ * may be simple (<code>name</code>), indexed (<code>name[3]</code>) or
+ * mapped (<code>name(key)</code>), with the same meaning as in
+ * commons-beanutils; nested expressions are split by {@link PropertyPath}.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class PropertyAccessors
+{
+	/**
+	 * Accessor that delegates to commons-beanutils, for beans and property
+	 * expressions that are not plain getters. The beanutils instance is
+	 * looked up once, as the static <code>PropertyUtils</code> methods find
+	 * it through two synchronized lookups on every call.
+	 */
+	private static class DelegatingAccessor implements PropertyAccessor
+	{
+		/** The property expression. */
+		private final String name;
+
+		/** The beanutils instance to read with. */
+		private final PropertyUtilsBean propertyUtils;
+
+		/**
+		 * @param name
+		 */
+		DelegatingAccessor(final String name)
+		{
+			this.name = name;
+			this.propertyUtils = BeanUtilsBean.getInstance().getPropertyUtils();
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+		{
+			return this.propertyUtils.getProperty(bean, this.name);
+		}
+	}
+
+	/**
+	 * Accessor that reads a simple property of a {@link DynaBean} directly,
+	 * without the beanutils resolver, and reports undeclared properties as
+	 * missing rather than by throwing.
+	 */
+	private static class DynaPropertyAccessor implements PropertyAccessor
+	{
+		/** The property name. */
+		private final String name;
+
+		/**
+		 * @param name
+		 */
+		DynaPropertyAccessor(final String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean)
+		{
+			final DynaBean dynaBean = (DynaBean) bean;
+
+			if(dynaBean.getDynaClass().getDynaProperty(this.name) == null)
+			{
+				return NO_SUCH_PROPERTY;
+			}
+
+			return dynaBean.get(this.name);
+		}
+	}
+
+	/**
+	 * Accessor that invokes an indexed read method.
+	 */
+	private static class IndexedMethodAccessor implements PropertyAccessor
+	{
+		/** The index. */
+		private final Integer index;
+
+		/** The accessible indexed read method. */
+		private final Method readMethod;
+
+		/**
+		 * @param readMethod
+		 * @param index
+		 */
+		IndexedMethodAccessor(final Method readMethod, final int index)
+		{
+			this.readMethod = readMethod;
+			this.index = Integer.valueOf(index);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.readMethod.invoke(bean, this.index);
+		}
+	}
+
+	/**
+	 * Accessor that reads an element of an array or list property.
+	 */
+	private static class IndexedValueAccessor implements PropertyAccessor
+	{
+		/** The index. */
+		private final int index;
+
+		/** The accessible read method of the array or list. */
+		private final Method readMethod;
+
+		/**
+		 * @param readMethod
+		 * @param index
+		 */
+		IndexedValueAccessor(final Method readMethod, final int index)
+		{
+			this.readMethod = readMethod;
+			this.index = index;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			final Object value = this.readMethod.invoke(bean);
+
+			if(value instanceof List)
+			{
+				return ((List<?>) value).get(this.index);
+			}
+
+			if(value == null || !value.getClass().isArray())
+			{
+				throw new IllegalArgumentException("Property '" + this.readMethod.getName() + "' is not indexed");
+			}
+
+			return Array.get(value, this.index);
+		}
+	}
+
+	/**
+	 * Accessor that reads a simple name from a {@link Map} argument with
+	 * <code>get</code>, as beanutils does after parsing the name; missing keys
+	 * read as <code>null</code>.
+	 */
+	private static class MapKeyAccessor implements PropertyAccessor
+	{
+		/** The key. */
+		private final String key;
+
+		/**
+		 * @param key
+		 */
+		MapKeyAccessor(final String key)
+		{
+			this.key = key;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean)
+		{
+			return ((Map<?, ?>) bean).get(this.key);
+		}
+	}
+
+	/**
+	 * Accessor that invokes a mapped read method.
+	 */
+	private static class MappedMethodAccessor implements PropertyAccessor
+	{
+		/** The key. */
+		private final String key;
+
+		/** The accessible mapped read method. */
+		private final Method readMethod;
+
+		/**
+		 * @param readMethod
+		 * @param key
+		 */
+		MappedMethodAccessor(final Method readMethod, final String key)
+		{
+			this.readMethod = readMethod;
+			this.key = key;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.readMethod.invoke(bean, this.key);
+		}
+	}
+
+	/**
+	 * Accessor that reads an entry of a map property.
+	 */
+	private static class MappedValueAccessor implements PropertyAccessor
+	{
+		/** The key. */
+		private final String key;
+
+		/** The accessible read method of the map. */
+		private final Method readMethod;
+
+		/**
+		 * @param readMethod
+		 * @param key
+		 */
+		MappedValueAccessor(final Method readMethod, final String key)
+		{
+			this.readMethod = readMethod;
+			this.key = key;
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			final Object value = this.readMethod.invoke(bean);
+			return value instanceof Map ? ((Map<?, ?>) value).get(this.key) : null;
+		}
+	}
+
+	/**
+	 * Accessor that invokes a resolved read method.
+	 */
+	private static class MethodAccessor implements PropertyAccessor
+	{
+		/** The accessible read method. */
+		final Method readMethod;
+
+		/** Reader calling the read method. */
+		final MemberReader reader;
+
+		/**
+		 * @param readMethod
+		 */
+		MethodAccessor(final Method readMethod)
+		{
+			this.readMethod = readMethod;
+			this.reader = new MemberReader(readMethod);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PropertyAccessor#getValue(java.lang.Object)
+		 */
+		public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.reader.read(bean);
+		}
+	}
+
+	/**
+	 * Accessor that invokes a resolved read method of a primitive type, which
+	 * returns the bits without boxing them where the {@link MemberReader}
+	 * engine allows.
+	 */
+	private static class PrimitiveMethodAccessor extends MethodAccessor implements PrimitivePropertyAccessor
+	{
+		/**
+		 * @param readMethod
+		 */
+		PrimitiveMethodAccessor(final Method readMethod)
+		{
+			super(readMethod);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PrimitivePropertyAccessor#getBits(java.lang.Object)
+		 */
+		public long getBits(final Object bean) throws IllegalAccessException, InvocationTargetException
+		{
+			return this.reader.readBits(bean);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.PrimitivePropertyAccessor#getPrimitiveType()
+		 */
+		public Class<?> getPrimitiveType()
+		{
+			return this.readMethod.getReturnType();
+		}
+	}
+
+	/** Value returned by accessors for properties that cannot be read. */
+	public static final Object NO_SUCH_PROPERTY = new Object()
+	{
+		@Override
+		public String toString()
+		{
+			return "<no such property>";
+		}
+	};
+
+	/** Accessor for properties that cannot be read. */
+	static final PropertyAccessor MISSING = new PropertyAccessor()
+	{
+		public Object getValue(final Object bean)
+		{
+			return NO_SUCH_PROPERTY;
+		}
+	};
+
+	/** Resolved accessors by bean class and property name. */
+	private static final ClassCache<ConcurrentMap<String, PropertyAccessor>> CACHE = new ClassCache<ConcurrentMap<String, PropertyAccessor>>("accessors");
+
+	/**
+	 * Disables object creation.
+	 */
+	private PropertyAccessors()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * Gets the accessor for the named property on the given class, resolving
+	 * it on first use.
+	 * 
+	 * @param type
+	 *        the runtime class of the beans to read.
+	 * @param name
+	 *        the property name, which may be indexed or mapped but not nested.
+	 * @return the accessor.
+	 */
+	public static PropertyAccessor forProperty(final Class<?> type, final String name)
+	{
+		if(name == null)
+		{
+			return MISSING;
+		}
+
+		ConcurrentMap<String, PropertyAccessor> accessors = CACHE.get(type);
+
+		if(accessors == null)
+		{
+			accessors = CACHE.putIfAbsent(type, new ConcurrentHashMap<String, PropertyAccessor>());
+		}
+
+		PropertyAccessor accessor = accessors.get(name);
+
+		if(accessor == null)
+		{
+			accessor = resolve(type, name);
+			final PropertyAccessor existing = accessors.putIfAbsent(name, accessor);
+
+			if(existing != null)
+			{
+				accessor = existing;
+			}
+		}
+
+		return accessor;
+	}
+
+	/**
+	 * Creates an accessor that invokes the given read method as is.
+	 * 
+	 * @param readMethod
+	 * @return the accessor.
+	 */
+	static PropertyAccessor forReadMethod(final Method readMethod)
+	{
+		return readMethod.getReturnType().isPrimitive() ? new PrimitiveMethodAccessor(readMethod) : new MethodAccessor(readMethod);
+	}
+
+	/**
+	 * @param accessor
+	 * @return the read method the accessor invokes as is, or
+	 *         <code>null</code> if it does something else.
+	 */
+	static Method readMethodOf(final PropertyAccessor accessor)
+	{
+		return accessor instanceof MethodAccessor ? ((MethodAccessor) accessor).readMethod : null;
+	}
+
+	/**
+	 * Resolves the accessor for the named property on the given class.
+	 * 
+	 * @param type
+	 * @param name
+	 * @return the accessor.
+	 */
+	private static PropertyAccessor resolve(final Class<?> type, final String name)
+	{
+		final boolean simple = name.indexOf(PropertyUtils.MAPPED_DELIM) < 0 && name.indexOf(PropertyUtils.INDEXED_DELIM) < 0 && name.indexOf(PropertyUtils.NESTED_DELIM) < 0;
+
+		if(simple && Map.class.isAssignableFrom(type))
+		{
+			return new MapKeyAccessor(name);
+		}
+		else if(simple && DynaBean.class.isAssignableFrom(type))
+		{
+			return new DynaPropertyAccessor(name);
+		}
+		else if(Map.class.isAssignableFrom(type) || DynaBean.class.isAssignableFrom(type) || PropertyPath.nextNestedIndex(name) >= 0)
+		{
+			return new DelegatingAccessor(name);
+		}
+
+		try
+		{
+			final int mappedStart = name.indexOf(PropertyUtils.MAPPED_DELIM);
+
+			if(mappedStart >= 0)
+			{
+				final int mappedEnd = name.indexOf(PropertyUtils.MAPPED_DELIM2, mappedStart);
+				return resolveMapped(type, name.substring(0, mappedStart), name.substring(mappedStart + 1, mappedEnd));
+			}
+
+			final int indexedStart = name.indexOf(PropertyUtils.INDEXED_DELIM);
+
+			if(indexedStart >= 0)
+			{
+				final int indexedEnd = name.indexOf(PropertyUtils.INDEXED_DELIM2, indexedStart);
+				return resolveIndexed(type, name.substring(0, indexedStart), Integer.parseInt(name.substring(indexedStart + 1, indexedEnd)));
+			}
+		}
+		catch(final IndexOutOfBoundsException e)
+		{
+			return MISSING;
+		}
+		catch(final NumberFormatException e)
+		{
+			return MISSING;
+		}
+
+		final Map<String, PropertyAccessor> generated = AccessorTables.forClass(type);
+
+		if(generated != null && generated.containsKey(name))
+		{
+			return generated.get(name);
+		}
+
+		final Method readMethod = readMethod(PropertyDescriptors.find(type, name));
+		return readMethod == null ? MISSING : forReadMethod(readMethod);
+	}
+
+	/**
+	 * Resolves an indexed property, preferring an indexed read method over
+	 * reading the whole array or list.
+	 * 
+	 * @param type
+	 * @param name
+	 * @param index
+	 * @return the accessor.
+	 */
+	private static PropertyAccessor resolveIndexed(final Class<?> type, final String name, final int index)
+	{
+		final PropertyDescriptor descriptor = PropertyDescriptors.find(type, name);
+
+		if(descriptor instanceof IndexedPropertyDescriptor)
+		{
+			final Method indexedReadMethod = ((IndexedPropertyDescriptor) descriptor).getIndexedReadMethod();
+
+			if(indexedReadMethod != null && MethodUtils.getAccessibleMethod(indexedReadMethod) != null)
+			{
+				return new IndexedMethodAccessor(MethodUtils.getAccessibleMethod(indexedReadMethod), index);
+			}
+		}
+
+		final Method readMethod = readMethod(descriptor);
+		return readMethod == null ? MISSING : new IndexedValueAccessor(readMethod, index);
+	}
+
+	/**
+	 * Resolves a mapped property, using a plain getter returning a map if
+	 * there is one, and a <code>getName(String)</code> method otherwise.
+	 * 
+	 * @param type
+	 * @param name
+	 * @param key
+	 * @return the accessor.
+	 */
+	private static PropertyAccessor resolveMapped(final Class<?> type, final String name, final String key)
+	{
+		final PropertyDescriptor descriptor = PropertyDescriptors.find(type, name);
+
+		if(descriptor != null)
+		{
+			final Method readMethod = readMethod(descriptor);
+			return readMethod == null ? MISSING : new MappedValueAccessor(readMethod, key);
+		}
+
+		if(name.length() == 0)
+		{
+			return MISSING;
+		}
+
+		final String methodName = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		final Method mappedReadMethod = MethodUtils.getAccessibleMethod(type, methodName, String.class);
+		return mappedReadMethod == null ? MISSING : new MappedMethodAccessor(mappedReadMethod, key);
+	}
+
+	/**
+	 * @param descriptor
+	 * @return the accessible read method of the descriptor, or
+	 *         <code>null</code>.
+	 */
+	private static Method readMethod(final PropertyDescriptor descriptor)
+	{
+		return descriptor == null || descriptor.getReadMethod() == null ? null : MethodUtils.getAccessibleMethod(descriptor.getReadMethod());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the property descriptors of each class in a {@link ClassCache}, so
+ * that lookups take no locks and do not keep the class alive. Descriptors are
+ * read from <code>java.beans.Introspector</code> as commons-beanutils does,
+ * but without beanutils' own cache, which holds classes strongly. The
+ * Introspector's own cache is shared with other code, so it is left alone.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class PropertyDescriptors
+{
+	/** Empty descriptor array. */
+	private static final PropertyDescriptor[] NONE = new PropertyDescriptor[0];
+
+	/** Descriptors by class. */
+	private static final ClassCache<PropertyDescriptors> CACHE = new ClassCache<PropertyDescriptors>("descriptors");
+
+	/** The descriptors by property name. */
+	private final Map<String, PropertyDescriptor> byName = new HashMap<String, PropertyDescriptor>();
+
+	/** The descriptors in introspection order. */
+	private final PropertyDescriptor[] descriptors;
+
+	/**
+	 * @param descriptors
+	 */
+	private PropertyDescriptors(final PropertyDescriptor[] descriptors)
+	{
+		this.descriptors = descriptors;
+
+		for(final PropertyDescriptor descriptor : descriptors)
+		{
+			this.byName.put(descriptor.getName(), descriptor);
+		}
+	}
+
+	/**
+	 * Gets the descriptor of the named property.
+	 * 
+	 * @param type
+	 * @param name
+	 * @return the descriptor, or <code>null</code> if the class has no such
+	 *         property.
+	 */
+	static PropertyDescriptor find(final Class<?> type, final String name)
+	{
+		return of(type).byName.get(name);
+	}
+
+	/**
+	 * Gets the descriptors of all properties of the class. The returned array
+	 * is shared and must not be modified.
+	 * 
+	 * @param type
+	 * @return the descriptors.
+	 */
+	static PropertyDescriptor[] forClass(final Class<?> type)
+	{
+		return of(type).descriptors;
+	}
+
+	/**
+	 * @param type
+	 * @return the cached or newly introspected descriptors of the class.
+	 */
+	private static PropertyDescriptors of(final Class<?> type)
+	{
+		PropertyDescriptors descriptors = CACHE.get(type);
+
+		if(descriptors == null)
+		{
+			descriptors = CACHE.putIfAbsent(type, new PropertyDescriptors(introspect(type)));
+		}
+
+		return descriptors;
+	}
+
+	/**
+	 * @param type
+	 * @return the descriptors of the class, or none if it cannot be
+	 *         introspected.
+	 */
+	private static PropertyDescriptor[] introspect(final Class<?> type)
+	{
+		try
+		{
+			final PropertyDescriptor[] descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+			return descriptors == null ? NONE : descriptors;
+		}
+		catch(final IntrospectionException e)
+		{
+			return NONE;
+		}
+	}
+}
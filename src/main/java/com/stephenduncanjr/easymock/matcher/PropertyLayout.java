@@ -0,0 +1,369 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The readable properties of a class, less the <code>class</code> property
+ * and any ignored properties, or only the included properties, with their
+ * read methods resolved; or the instance fields of a class, less any ignored
+ * fields. Layouts are computed once per class and set of ignored or included
+ * properties and then shared.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class PropertyLayout
+{
+	/**
+	 * Cache key of a set of ignored or included property names, within the
+	 * layouts of one class.
+	 */
+	private static class Key
+	{
+		/** Whether the names are fields rather than properties. */
+		private final boolean fields;
+
+		/** Whether the names are included rather than ignored. */
+		private final boolean including;
+
+		/** The ignored or included property names. */
+		private final Set<String> names;
+
+		/**
+		 * @param names
+		 * @param including
+		 * @param fields
+		 */
+		Key(final Set<String> names, final boolean including, final boolean fields)
+		{
+			this.names = names;
+			this.including = including;
+			this.fields = fields;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if(!(obj instanceof Key))
+			{
+				return false;
+			}
+
+			final Key other = (Key) obj;
+			return this.including == other.including && this.fields == other.fields && this.names.equals(other.names);
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return 31 * this.names.hashCode() + (this.including ? 1 : 0) + (this.fields ? 2 : 0);
+		}
+	}
+
+	/** Layouts by class, by ignored or included properties. */
+	private static final ClassCache<ConcurrentMap<Key, PropertyLayout>> CACHE = new ClassCache<ConcurrentMap<Key, PropertyLayout>>("layouts");
+
+	/** Accessors, in the order of the property names. */
+	private final PropertyAccessor[] accessors;
+
+	/** Whether the layout reads fields rather than properties. */
+	private final boolean fields;
+
+	/**
+	 * Parsed paths of the properties, created on first use and shared by all
+	 * matchers using this layout.
+	 */
+	private volatile PropertyPath[] propertyPaths;
+
+	/** Names of the properties. */
+	private final String[] propertyNames;
+
+	/**
+	 * @param propertyNames
+	 * @param accessors
+	 * @param fields
+	 */
+	private PropertyLayout(final String[] propertyNames, final PropertyAccessor[] accessors, final boolean fields)
+	{
+		this.propertyNames = propertyNames;
+		this.accessors = accessors;
+		this.fields = fields;
+	}
+
+	/**
+	 * Gets the layout for the given class, ignoring the given properties.
+	 * 
+	 * @param type
+	 *        the class of the beans to read.
+	 * @param ignored
+	 *        the names of properties to leave out.
+	 * @return the layout.
+	 */
+	public static PropertyLayout forClass(final Class<?> type, final Collection<String> ignored)
+	{
+		return forKey(type, new Key(new HashSet<String>(ignored), false, false));
+	}
+
+	/**
+	 * Gets the layout of the instance fields of the given class, ignoring the
+	 * given fields.
+	 * 
+	 * @param type
+	 *        the class of the objects to read.
+	 * @param ignored
+	 *        the names of fields to leave out.
+	 * @return the layout.
+	 */
+	public static PropertyLayout forFields(final Class<?> type, final Collection<String> ignored)
+	{
+		return forKey(type, new Key(new HashSet<String>(ignored), false, true));
+	}
+
+	/**
+	 * Gets the layout for the given class, with only the given properties.
+	 * 
+	 * @param type
+	 *        the class of the beans to read.
+	 * @param included
+	 *        the names of the properties to read.
+	 * @return the layout.
+	 * @throws IllegalArgumentException
+	 *         if an included property is not readable.
+	 */
+	public static PropertyLayout including(final Class<?> type, final Collection<String> included)
+	{
+		final Set<String> names = new HashSet<String>(included);
+		final PropertyLayout layout = forKey(type, new Key(names, true, false));
+
+		if(layout.size() != names.size())
+		{
+			final Set<String> missing = new HashSet<String>(names);
+			missing.removeAll(Arrays.asList(layout.propertyNames));
+			throw new IllegalArgumentException("No readable properties " + missing + " on " + type.getName());
+		}
+
+		return layout;
+	}
+
+	/**
+	 * @param type
+	 * @param key
+	 * @return the cached or newly created layout for the class and key.
+	 */
+	private static PropertyLayout forKey(final Class<?> type, final Key key)
+	{
+		ConcurrentMap<Key, PropertyLayout> layouts = CACHE.get(type);
+
+		if(layouts == null)
+		{
+			layouts = CACHE.putIfAbsent(type, new ConcurrentHashMap<Key, PropertyLayout>());
+		}
+
+		PropertyLayout layout = layouts.get(key);
+
+		if(layout == null)
+		{
+			layout = create(type, key);
+			layouts.putIfAbsent(key, layout);
+		}
+
+		return layout;
+	}
+
+	/**
+	 * Builds the layout for the given class and key.
+	 * 
+	 * @param type
+	 * @param key
+	 * @return the layout.
+	 */
+	private static PropertyLayout create(final Class<?> type, final Key key)
+	{
+		final List<String> names = new ArrayList<String>();
+		final List<PropertyAccessor> accessors = new ArrayList<PropertyAccessor>();
+
+		if(key.fields)
+		{
+			for(final String name : FieldAccessors.fieldNames(type))
+			{
+				final PropertyAccessor accessor = FieldAccessors.forField(type, name);
+
+				if(accessor != PropertyAccessors.MISSING && !key.names.contains(name))
+				{
+					names.add(name);
+					accessors.add(accessor);
+				}
+			}
+
+			return new PropertyLayout(names.toArray(new String[names.size()]), accessors.toArray(new PropertyAccessor[accessors.size()]), true);
+		}
+
+		final Map<String, PropertyAccessor> generated = AccessorTables.forClass(type);
+
+		if(generated != null)
+		{
+			for(final Entry<String, PropertyAccessor> entry : generated.entrySet())
+			{
+				if(key.names.contains(entry.getKey()) == key.including)
+				{
+					names.add(entry.getKey());
+					accessors.add(entry.getValue());
+				}
+			}
+
+			return new PropertyLayout(names.toArray(new String[names.size()]), accessors.toArray(new PropertyAccessor[accessors.size()]), false);
+		}
+
+		for(final PropertyDescriptor p : PropertyDescriptors.forClass(type))
+		{
+			if(p.getReadMethod() != null && !"class".equals(p.getName()) && key.names.contains(p.getName()) == key.including)
+			{
+				names.add(p.getName());
+				accessors.add(PropertyAccessors.forReadMethod(p.getReadMethod()));
+			}
+		}
+
+		return new PropertyLayout(names.toArray(new String[names.size()]), accessors.toArray(new PropertyAccessor[accessors.size()]), false);
+	}
+
+	/**
+	 * @param index
+	 * @return the name of the property at the given index.
+	 */
+	public String getPropertyName(final int index)
+	{
+		return this.propertyNames[index];
+	}
+
+	/**
+	 * @return the parsed paths of the properties, shared and not to be
+	 *         modified.
+	 */
+	PropertyPath[] getPropertyPaths()
+	{
+		PropertyPath[] paths = this.propertyPaths;
+
+		if(paths == null)
+		{
+			paths = new PropertyPath[this.propertyNames.length];
+
+			for(int i = 0; i < paths.length; i++)
+			{
+				paths[i] = new PropertyPath(this.propertyNames[i], this.fields);
+			}
+
+			this.propertyPaths = paths;
+		}
+
+		return paths;
+	}
+
+	/**
+	 * @return whether the layout reads fields rather than properties.
+	 */
+	public boolean isFields()
+	{
+		return this.fields;
+	}
+
+	/**
+	 * Reads the value of the property at the given index from the given bean.
+	 * 
+	 * @param bean
+	 *        the bean to read, an instance of the layout's class.
+	 * @param index
+	 * @return the property value.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public Object getValue(final Object bean, final int index) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		return this.accessors[index].getValue(bean);
+	}
+
+	/**
+	 * Reads the values of the properties in this layout from the given bean.
+	 * 
+	 * @param bean
+	 *        the bean to read, an instance of the layout's class.
+	 * @return the values, in the order of the layout.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public Object[] readValueArray(final Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		final Object[] values = new Object[this.propertyNames.length];
+
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = this.accessors[i].getValue(bean);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Reads the values of the properties in this layout from the given bean.
+	 * 
+	 * @param bean
+	 *        the bean to read, an instance of the layout's class.
+	 * @return map of property names to values.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public Map<String, Object> readValues(final Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		final Map<String, Object> values = new HashMap<String, Object>();
+
+		for(int i = 0; i < this.propertyNames.length; i++)
+		{
+			values.put(this.propertyNames[i], this.accessors[i].getValue(bean));
+		}
+
+		return values;
+	}
+
+	/**
+	 * @return the number of properties in this layout.
+	 */
+	public int size()
+	{
+		return this.propertyNames.length;
+	}
+}
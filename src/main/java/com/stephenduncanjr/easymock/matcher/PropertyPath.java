@@ -0,0 +1,235 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+/**
+ * A property expression, such as <code>order.lines[3].sku</code> or
+ * <code>attrs(region)</code>, parsed once into its nested segments. Each
+ * segment keeps the accessor resolved for the class it was last read from,
+ * so reading the path costs one accessor call per segment. A path can also
+ * name fields instead of properties, such as <code>order.lines</code> read
+ * through the <code>order</code> and <code>lines</code> fields.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class PropertyPath
+{
+	/**
+	 * An accessor resolved for one class.
+	 */
+	private static class Resolution
+	{
+		/** The accessor. */
+		final PropertyAccessor accessor;
+
+		/** The class the accessor was resolved for. */
+		final Class<?> type;
+
+		/**
+		 * @param type
+		 * @param accessor
+		 */
+		Resolution(final Class<?> type, final PropertyAccessor accessor)
+		{
+			this.type = type;
+			this.accessor = accessor;
+		}
+	}
+
+	/** The full expression. */
+	private final String expression;
+
+	/** Whether the segments name fields rather than properties. */
+	private final boolean fields;
+
+	/** Accessors for the class each segment was last read from. */
+	private final Resolution[] resolutions;
+
+	/** The segments, each a simple, indexed or mapped property name. */
+	private final String[] segments;
+
+	/**
+	 * Parses the given property expression.
+	 * 
+	 * @param expression
+	 *        the property expression, in commons-beanutils syntax.
+	 */
+	public PropertyPath(final String expression)
+	{
+		this(expression, false);
+	}
+
+	/**
+	 * Parses the given property or field expression.
+	 * 
+	 * @param expression
+	 *        the expression, in commons-beanutils syntax.
+	 * @param fields
+	 *        whether the segments name fields, read directly, rather than
+	 *        properties.
+	 */
+	public PropertyPath(final String expression, final boolean fields)
+	{
+		this.expression = expression;
+		this.fields = fields;
+		this.segments = split(expression);
+		this.resolutions = new Resolution[this.segments.length];
+	}
+
+	/**
+	 * Finds the next nested delimiter that is not inside an index or key.
+	 * 
+	 * @param expression
+	 * @return the index of the delimiter, or -1 if there is none.
+	 */
+	static int nextNestedIndex(final String expression)
+	{
+		int bracketCount = 0;
+
+		for(int i = 0; i < expression.length(); i++)
+		{
+			final char c = expression.charAt(i);
+
+			if(c == PropertyUtils.NESTED_DELIM && bracketCount < 1)
+			{
+				return i;
+			}
+			else if(c == PropertyUtils.MAPPED_DELIM || c == PropertyUtils.INDEXED_DELIM)
+			{
+				bracketCount++;
+			}
+			else if(c == PropertyUtils.MAPPED_DELIM2 || c == PropertyUtils.INDEXED_DELIM2)
+			{
+				bracketCount--;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Splits the expression into its nested segments.
+	 * 
+	 * @param expression
+	 * @return the segments.
+	 */
+	private static String[] split(final String expression)
+	{
+		if(expression == null)
+		{
+			return new String[] {null};
+		}
+
+		final List<String> segments = new ArrayList<String>();
+		String remaining = expression;
+
+		for(int next = nextNestedIndex(remaining); next >= 0; next = nextNestedIndex(remaining))
+		{
+			segments.add(remaining.substring(0, next));
+			remaining = remaining.substring(next + 1);
+		}
+
+		segments.add(remaining);
+		return segments.toArray(new String[segments.size()]);
+	}
+
+	/**
+	 * Reads the value of this path from the given bean.
+	 * 
+	 * @param bean
+	 *        the bean to start from.
+	 * @return the value, or {@link PropertyAccessors#NO_SUCH_PROPERTY} if a
+	 *         segment cannot be read or an intermediate value is
+	 *         <code>null</code>.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public Object getValue(final Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+	{
+		Object value = bean;
+
+		for(int i = 0; i < this.segments.length; i++)
+		{
+			if(value == null || value == PropertyAccessors.NO_SUCH_PROPERTY)
+			{
+				return PropertyAccessors.NO_SUCH_PROPERTY;
+			}
+
+			value = accessorFor(i, value.getClass()).getValue(value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * @return whether the segments name fields rather than properties.
+	 */
+	public boolean isFields()
+	{
+		return this.fields;
+	}
+
+	/**
+	 * Gets the accessor for a single-segment path on the given class.
+	 * 
+	 * @param type
+	 *        the class of the bean to read.
+	 * @return the accessor, or <code>null</code> if the path is nested.
+	 */
+	PropertyAccessor singleAccessor(final Class<?> type)
+	{
+		return this.segments.length == 1 ? accessorFor(0, type) : null;
+	}
+
+	/**
+	 * @return the expression.
+	 */
+	@Override
+	public String toString()
+	{
+		return this.expression;
+	}
+
+	/**
+	 * Gets the accessor for a segment on the given class, resolving it if the
+	 * class differs from the last one seen for that segment.
+	 * 
+	 * @param segment
+	 * @param type
+	 * @return the accessor.
+	 */
+	private PropertyAccessor accessorFor(final int segment, final Class<?> type)
+	{
+		final Resolution cached = this.resolutions[segment];
+
+		if(cached != null && cached.type == type)
+		{
+			return cached.accessor;
+		}
+
+		final PropertyAccessor accessor = this.fields ? FieldAccessors.forField(type, this.segments[segment]) : PropertyAccessors.forProperty(type, this.segments[segment]);
+		this.resolutions[segment] = new Resolution(type, accessor);
+		return accessor;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.util.Arrays;
+
+/**
+ * A condition on the properties of an argument, built with
+ * {@link PropertyPredicates} and matched with
+ * {@link com.stephenduncanjr.easymock.EasyMockPropertyUtils#propThat(Class, PropertyPredicate)}.
+ * Predicates are immutable and can be shared between matchers.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class PropertyPredicate
+{
+	/**
+	 * The kinds of predicate.
+	 */
+	enum Kind
+	{
+		/** All children hold. */
+		AND,
+
+		/** The property equals the operand. */
+		EQ,
+
+		/** The property equals one of the operands. */
+		IN,
+
+		/** The property is <code>null</code>. */
+		IS_NULL,
+
+		/** The child does not hold. */
+		NOT,
+
+		/** Any child holds. */
+		OR,
+
+		/** The property lies between the operands, either of which may be open. */
+		RANGE
+	}
+
+	/** Child predicates, for and, or and not. */
+	final PropertyPredicate[] children;
+
+	/** The kind of predicate. */
+	final Kind kind;
+
+	/** Values the property is compared with. */
+	final Object[] operands;
+
+	/** The property, or <code>null</code> for and, or and not. */
+	final String property;
+
+	/**
+	 * Creates a predicate on a property.
+	 * 
+	 * @param kind
+	 * @param property
+	 * @param operands
+	 */
+	PropertyPredicate(final Kind kind, final String property, final Object[] operands)
+	{
+		if(property == null)
+		{
+			throw new IllegalArgumentException("Property must not be null");
+		}
+
+		this.kind = kind;
+		this.property = property;
+		this.operands = operands;
+		this.children = null;
+	}
+
+	/**
+	 * Creates a predicate combining others.
+	 * 
+	 * @param kind
+	 * @param children
+	 */
+	PropertyPredicate(final Kind kind, final PropertyPredicate[] children)
+	{
+		if(children == null || children.length == 0)
+		{
+			throw new IllegalArgumentException("At least one predicate must be given");
+		}
+
+		for(final PropertyPredicate child : children)
+		{
+			if(child == null)
+			{
+				throw new IllegalArgumentException("Predicates must not be null");
+			}
+		}
+
+		this.kind = kind;
+		this.property = null;
+		this.operands = null;
+		this.children = children.clone();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		final StringBuilder builder = new StringBuilder();
+
+		switch(this.kind)
+		{
+			case AND:
+			case OR:
+			case NOT:
+				builder.append(this.kind.name().toLowerCase()).append("(");
+
+				for(final PropertyPredicate child : this.children)
+				{
+					builder.append(child).append(", ");
+				}
+
+				builder.setLength(builder.length() - 2);
+				break;
+			case IS_NULL:
+				builder.append("isNull(").append(this.property);
+				break;
+			case IN:
+				builder.append("in(").append(this.property).append(", ").append(Arrays.asList(this.operands));
+				break;
+			default:
+				builder.append(this.kind.name().toLowerCase()).append("(").append(this.property);
+
+				for(final Object operand : this.operands)
+				{
+					builder.append(", ").append(operand);
+				}
+		}
+
+		return builder.append(")").toString();
+	}
+}
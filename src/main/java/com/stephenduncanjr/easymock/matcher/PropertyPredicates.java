@@ -0,0 +1,124 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import com.stephenduncanjr.easymock.matcher.PropertyPredicate.Kind;
+
+/**
+ * Builds {@link PropertyPredicate}s. Properties are named as in the other
+ * matchers, and may be nested, indexed or mapped. A predicate on a property
+ * that cannot be read does not hold, and its negation does; properties are
+ * only read until the result is decided, in the order the matcher evaluates
+ * them. These methods share names with <code>EasyMock</code> matchers, so
+ * import them through this class rather than statically alongside
+ * <code>EasyMock</code>.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public final class PropertyPredicates
+{
+	/**
+	 * Disables object creation.
+	 */
+	private PropertyPredicates()
+	{
+		// Hide constructor
+	}
+
+	/**
+	 * @param predicates
+	 * @return a predicate holding if all the given ones hold.
+	 */
+	public static PropertyPredicate and(final PropertyPredicate... predicates)
+	{
+		return new PropertyPredicate(Kind.AND, predicates);
+	}
+
+	/**
+	 * @param property
+	 * @param value
+	 *        the expected value; arrays and buffers compare by content.
+	 * @return a predicate holding if the property equals the value.
+	 */
+	public static PropertyPredicate eq(final String property, final Object value)
+	{
+		return new PropertyPredicate(Kind.EQ, property, new Object[] {value});
+	}
+
+	/**
+	 * @param property
+	 * @param values
+	 *        the allowed values, compared by <code>equals</code> and
+	 *        <code>hashCode</code>; arrays and buffers compare by content.
+	 * @return a predicate holding if the property equals one of the values.
+	 */
+	public static PropertyPredicate in(final String property, final Object... values)
+	{
+		if(values == null)
+		{
+			throw new IllegalArgumentException("Values must not be null");
+		}
+
+		return new PropertyPredicate(Kind.IN, property, values.clone());
+	}
+
+	/**
+	 * @param property
+	 * @return a predicate holding if the property is <code>null</code>.
+	 */
+	public static PropertyPredicate isNull(final String property)
+	{
+		return new PropertyPredicate(Kind.IS_NULL, property, new Object[0]);
+	}
+
+	/**
+	 * @param predicate
+	 * @return a predicate holding if the given one does not.
+	 */
+	public static PropertyPredicate not(final PropertyPredicate predicate)
+	{
+		return new PropertyPredicate(Kind.NOT, new PropertyPredicate[] {predicate});
+	}
+
+	/**
+	 * @param predicates
+	 * @return a predicate holding if any of the given ones holds.
+	 */
+	public static PropertyPredicate or(final PropertyPredicate... predicates)
+	{
+		return new PropertyPredicate(Kind.OR, predicates);
+	}
+
+	/**
+	 * Numbers of different types are compared exactly by value, and
+	 * characters with numeric bounds by their code. Primitive fields are read
+	 * without boxing them, as are primitive getters on Java 17. Other values
+	 * are compared with <code>compareTo</code>.
+	 * 
+	 * @param property
+	 * @param min
+	 *        the smallest allowed value, or <code>null</code> for no minimum.
+	 * @param max
+	 *        the largest allowed value, or <code>null</code> for no maximum.
+	 * @return a predicate holding if the property is not <code>null</code>
+	 *         and lies between the bounds, inclusive.
+	 */
+	public static PropertyPredicate range(final String property, final Comparable<?> min, final Comparable<?> max)
+	{
+		return new PropertyPredicate(Kind.RANGE, property, new Object[] {min, max});
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.stephenduncanjr.easymock.matcher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Reads a field or calls a parameterless read method for the accessors.
+ * This is the Java 17 engine of the multi-release jar: each member is
+ * unreflected once into a method handle adapted to
+ * <code>(Object)Object</code> and called with <code>invokeExact</code>,
+ * which skips the per-call access and argument checks of reflection.
+ * Members of a primitive type also get a handle adapted to
+ * <code>(Object)long</code> that converts the value to its bits, so that
+ * they are read without boxing. A <code>null</code> or wrongly typed bean is
+ * rejected before the handle is called, and only exceptions thrown by read
+ * methods are wrapped, both as reflection does. Members the handle lookup
+ * cannot access are read reflectively.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+final class MemberReader
+{
+	/** Type every bits handle is adapted to. */
+	private static final MethodType BITS_TYPE = MethodType.methodType(Long.TYPE, Object.class);
+
+	/** Converts a <code>double</code> to its bits. */
+	private static final MethodHandle DOUBLE_BITS = converter(Double.class, "doubleToLongBits", Long.TYPE, Double.TYPE);
+
+	/** Converts a <code>float</code> to its bits. */
+	private static final MethodHandle FLOAT_BITS = converter(Float.class, "floatToIntBits", Integer.TYPE, Float.TYPE);
+
+	/** Lookup to unreflect members with. */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/** Type every handle is adapted to. */
+	private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * The bits handle, or <code>null</code> if the member is not primitive or
+	 * is read reflectively.
+	 */
+	private final MethodHandle bitsHandle;
+
+	/** The accessible field, or <code>null</code>. */
+	private final Field field;
+
+	/** The adapted handle, or <code>null</code> to read reflectively. */
+	private final MethodHandle handle;
+
+	/** The accessible read method, or <code>null</code>. */
+	private final Method readMethod;
+
+	/**
+	 * @param field
+	 *        the accessible field to read.
+	 */
+	MemberReader(final Field field)
+	{
+		this.field = field;
+		this.readMethod = null;
+
+		MethodHandle getter;
+
+		try
+		{
+			getter = LOOKUP.unreflectGetter(field);
+		}
+		catch(final IllegalAccessException e)
+		{
+			getter = null;
+		}
+
+		this.handle = getter == null ? null : getter.asType(READ_TYPE);
+		this.bitsHandle = bitsHandle(getter);
+	}
+
+	/**
+	 * @param readMethod
+	 *        the accessible read method to call.
+	 */
+	MemberReader(final Method readMethod)
+	{
+		this.field = null;
+		this.readMethod = readMethod;
+
+		MethodHandle invoker;
+
+		try
+		{
+			invoker = LOOKUP.unreflect(readMethod);
+		}
+		catch(final IllegalAccessException e)
+		{
+			invoker = null;
+		}
+
+		this.handle = invoker == null ? null : invoker.asType(READ_TYPE);
+		this.bitsHandle = bitsHandle(invoker);
+	}
+
+	/**
+	 * @param member
+	 *        the unadapted handle of a member, or <code>null</code>.
+	 * @return the member handle adapted to return bits, or <code>null</code>
+	 *         if the member is not primitive.
+	 */
+	private static MethodHandle bitsHandle(final MethodHandle member)
+	{
+		if(member == null || !member.type().returnType().isPrimitive())
+		{
+			return null;
+		}
+
+		final Class<?> type = member.type().returnType();
+		MethodHandle bits = member;
+
+		if(type == Double.TYPE)
+		{
+			bits = MethodHandles.filterReturnValue(member, DOUBLE_BITS);
+		}
+		else if(type == Float.TYPE)
+		{
+			bits = MethodHandles.filterReturnValue(member, FLOAT_BITS);
+		}
+		else if(type == Boolean.TYPE)
+		{
+			// Converts true to 1 and false to 0
+			bits = MethodHandles.explicitCastArguments(member, member.type().changeReturnType(Integer.TYPE));
+		}
+
+		// Widens the integral types and char to long
+		return bits.asType(BITS_TYPE);
+	}
+
+	/**
+	 * @param owner
+	 * @param name
+	 * @param returnType
+	 * @param parameterType
+	 * @return a handle of the public static conversion method.
+	 */
+	private static MethodHandle converter(final Class<?> owner, final String name, final Class<?> returnType, final Class<?> parameterType)
+	{
+		try
+		{
+			return MethodHandles.publicLookup().findStatic(owner, name, MethodType.methodType(returnType, parameterType));
+		}
+		catch(final ReflectiveOperationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the name of this engine.
+	 */
+	static String engine()
+	{
+		return "method handles";
+	}
+
+	/**
+	 * Rejects a bean the member cannot be read from, as reflection does.
+	 * 
+	 * @param bean
+	 * @throws NullPointerException
+	 *         if the bean is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *         if the bean is not an instance of the declaring class.
+	 */
+	private void checkBean(final Object bean)
+	{
+		if(bean == null)
+		{
+			throw new NullPointerException("Cannot read " + member() + " of null");
+		}
+
+		final Class<?> declaringClass = this.readMethod == null ? this.field.getDeclaringClass() : this.readMethod.getDeclaringClass();
+
+		if(!declaringClass.isInstance(bean))
+		{
+			throw new IllegalArgumentException("object is not an instance of declaring class: " + member() + " of " + bean.getClass().getName());
+		}
+	}
+
+	/**
+	 * @param e
+	 *        thrown by a handle.
+	 * @return the exception reflection would have thrown, if checked.
+	 * @throws RuntimeException
+	 *         reflection would have thrown, if unchecked.
+	 */
+	private InvocationTargetException failure(final Throwable e)
+	{
+		if(this.readMethod != null)
+		{
+			return new InvocationTargetException(e);
+		}
+		else if(e instanceof Error)
+		{
+			throw (Error) e;
+		}
+
+		// Field reads throw only unchecked exceptions, which reflection does not wrap
+		throw (RuntimeException) e;
+	}
+
+	/**
+	 * @return the field or read method, for messages.
+	 */
+	private Object member()
+	{
+		return this.readMethod == null ? this.field : this.readMethod;
+	}
+
+	/**
+	 * @param bean
+	 * @return the value of the field, or returned by the read method.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 *         if the read method throws.
+	 * @throws NullPointerException
+	 *         if the bean is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *         if the bean is not an instance of the declaring class.
+	 */
+	Object read(final Object bean) throws IllegalAccessException, InvocationTargetException
+	{
+		if(this.handle == null)
+		{
+			return this.readMethod == null ? this.field.get(bean) : this.readMethod.invoke(bean);
+		}
+
+		checkBean(bean);
+
+		try
+		{
+			return (Object) this.handle.invokeExact(bean);
+		}
+		catch(final Throwable e)
+		{
+			throw failure(e);
+		}
+	}
+
+	/**
+	 * Reads a member of a primitive type as bits.
+	 * 
+	 * @param bean
+	 * @return the bits of the value, as
+	 *         {@link PrimitivePropertyAccessor#getBits(Object)} defines them.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 *         if the read method throws.
+	 * @throws NullPointerException
+	 *         if the bean is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *         if the bean is not an instance of the declaring class.
+	 */
+	long readBits(final Object bean) throws IllegalAccessException, InvocationTargetException
+	{
+		if(this.bitsHandle == null)
+		{
+			return PrimitiveValues.toBits(read(bean));
+		}
+
+		checkBean(bean);
+
+		try
+		{
+			return (long) this.bitsHandle.invokeExact(bean);
+		}
+		catch(final Throwable e)
+		{
+			throw failure(e);
+		}
+	}
+}
@@ -13,7 +13,15 @@
  */
 package com.stephenduncanjr.easymock;
 
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.anyPropEq;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.eachPropEq;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propDeepEq;
 import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propEq;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propEqByKey;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propEqIncluding;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propEqLazy;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propFieldEq;
+import static com.stephenduncanjr.easymock.EasyMockPropertyUtils.propThat;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
@@ -21,6 +29,7 @@ import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -30,6 +39,9 @@ import java.util.Map;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.stephenduncanjr.easymock.matcher.PropertyPredicate;
+import com.stephenduncanjr.easymock.matcher.PropertyPredicates;
+
 /**
  * Tests EasyMockPropertyUtils.
  * 
@@ -57,6 +69,13 @@ public class EasyMockPropertyUtilsTest
 		 * @param test
 		 */
 		public void doSomething(TestClass test);
+
+		/**
+		 * Do something with a list of <code>TestClass</code>.
+		 * 
+		 * @param tests
+		 */
+		public void doSomething(List<TestClass> tests);
 	}
 
 	/**
@@ -271,6 +290,285 @@ public class EasyMockPropertyUtilsTest
 		}
 	}
 
+	/**
+	 * Tests the propEqIncluding method.
+	 */
+	@Test(groups = "integration")
+	public void testPropEqIncluding()
+	{
+		// Test with bad int value, should still pass by not including it.
+		final TestClass valuesObject = new TestClass(7);
+		valuesObject.setValue(VALUE);
+
+		// TestClass that property succeeds
+		this.iTest.doSomething(propEqIncluding(TestClass.class, valuesObject, new String[] {PROPERTY}));
+		replay(this.iTest);
+		this.iTest.doSomething(this.matchBothTest);
+		verify(this.iTest);
+
+		// TestClass that non-matching property fails
+		reset(this.iTest);
+		this.iTest.doSomething(propEqIncluding(valuesObject, new String[] {PROPERTY}));
+		replay(this.iTest);
+		try
+		{
+			this.iTest.doSomething(this.failTest);
+			verify(this.iTest);
+
+			fail("Non-matching property value should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+
+		try
+		{
+			propEqIncluding(valuesObject, new String[] {"missing"});
+			fail("Missing included property should not be accepted.");
+		}
+		catch(final IllegalArgumentException e)
+		{
+			// Expected
+		}
+	}
+
+	/**
+	 * Tests the propEqLazy method.
+	 */
+	@Test(groups = "integration")
+	public void testPropEqLazy()
+	{
+		final TestClass valuesObject = new TestClass("unset");
+
+		// TestClass that values are read on first use
+		this.iTest.doSomething(propEqLazy(valuesObject, new String[] {INT_PROPERTY}));
+		valuesObject.setValue(VALUE);
+		replay(this.iTest);
+		this.iTest.doSomething(this.matchBothTest);
+		verify(this.iTest);
+
+		// TestClass that non-matching property fails
+		reset(this.iTest);
+		this.iTest.doSomething(propEqLazy(valuesObject));
+		replay(this.iTest);
+		try
+		{
+			this.iTest.doSomething(this.failTest);
+			verify(this.iTest);
+
+			fail("Non-matching property value should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
+	/**
+	 * Tests the propDeepEq method.
+	 */
+	@Test(groups = "integration")
+	public void testPropDeepEq()
+	{
+		final TestClass valuesObject = new TestClass(INT_VALUE);
+		valuesObject.setValue(VALUE);
+
+		// TestClass that property succeeds
+		this.iTest.doSomething(propDeepEq(valuesObject));
+		replay(this.iTest);
+		this.iTest.doSomething(this.matchBothTest);
+		verify(this.iTest);
+
+		// TestClass that non-matching property fails
+		reset(this.iTest);
+		this.iTest.doSomething(propDeepEq(valuesObject, 2));
+		replay(this.iTest);
+		try
+		{
+			this.iTest.doSomething(this.failTest);
+			verify(this.iTest);
+
+			fail("Non-matching property value should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
+	/**
+	 * Tests the eachPropEq and anyPropEq methods.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test(groups = "integration")
+	public void testElementsPropEq()
+	{
+		final List<TestClass> mixed = Arrays.asList(this.matchTest, this.failTest);
+
+		// List where every element matches succeeds
+		this.iTest.doSomething(eachPropEq(List.class, PROPERTY, VALUE));
+		replay(this.iTest);
+		this.iTest.doSomething(Arrays.asList(this.matchTest, this.matchBothTest));
+		verify(this.iTest);
+
+		// List where one element matches succeeds
+		reset(this.iTest);
+		this.iTest.doSomething(anyPropEq(List.class, PROPERTY, VALUE));
+		replay(this.iTest);
+		this.iTest.doSomething(mixed);
+		verify(this.iTest);
+
+		// List where one element does not match fails
+		reset(this.iTest);
+		this.iTest.doSomething(eachPropEq(List.class, PROPERTY, VALUE));
+		replay(this.iTest);
+		try
+		{
+			this.iTest.doSomething(mixed);
+			verify(this.iTest);
+
+			fail("Non-matching element should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
+	/**
+	 * Tests the propEqByKey method.
+	 */
+	@Test(groups = "integration")
+	public void testPropEqByKey()
+	{
+		final Map<Integer, Map<String, Object>> table = new HashMap<Integer, Map<String, Object>>();
+
+		for(int i = 0; i < 100; i++)
+		{
+			final Map<String, Object> properties = new HashMap<String, Object>();
+			properties.put(PROPERTY, "value" + i);
+			table.put(Integer.valueOf(i), properties);
+		}
+
+		final TestClass keyed = new TestClass("value42");
+		keyed.setIntValue(42);
+
+		// Argument matching the entry for its key succeeds
+		this.iTest.doSomething(propEqByKey(TestClass.class, "intValue", table));
+		replay(this.iTest);
+		this.iTest.doSomething(keyed);
+		verify(this.iTest);
+
+		// Argument differing from the entry for its key fails
+		reset(this.iTest);
+		this.iTest.doSomething(propEqByKey(TestClass.class, "intValue", table));
+		replay(this.iTest);
+		keyed.setValue("value41");
+		try
+		{
+			this.iTest.doSomething(keyed);
+			verify(this.iTest);
+
+			fail("Argument differing from its entry should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+
+		// Argument with a key not in the table fails
+		reset(this.iTest);
+		this.iTest.doSomething(propEqByKey(TestClass.class, "intValue", table));
+		replay(this.iTest);
+		keyed.setIntValue(100);
+		try
+		{
+			this.iTest.doSomething(keyed);
+			verify(this.iTest);
+
+			fail("Argument with an unknown key should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
+	/**
+	 * Tests the propThat method.
+	 */
+	@Test(groups = "integration")
+	public void testPropThat()
+	{
+		final PropertyPredicate predicate = PropertyPredicates.and(PropertyPredicates.range(INT_PROPERTY, Integer.valueOf(10), Integer.valueOf(20)), PropertyPredicates.or(PropertyPredicates.in(PROPERTY, "a", "b"), PropertyPredicates.isNull(PROPERTY)));
+
+		final TestClass argument = new TestClass(15);
+		argument.setValue("b");
+
+		// Argument satisfying the predicate succeeds
+		this.iTest.doSomething(propThat(TestClass.class, predicate));
+		replay(this.iTest);
+		this.iTest.doSomething(argument);
+		verify(this.iTest);
+
+		// Argument outside the range fails
+		reset(this.iTest);
+		this.iTest.doSomething(propThat(TestClass.class, predicate));
+		replay(this.iTest);
+		argument.setIntValue(21);
+		try
+		{
+			this.iTest.doSomething(argument);
+			verify(this.iTest);
+
+			fail("Argument outside the range should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
+	/**
+	 * Tests the propFieldEq methods.
+	 */
+	@Test(groups = "integration")
+	public void testPropFieldEq()
+	{
+		final TestClass valuesObject = new TestClass(INT_VALUE);
+		valuesObject.setValue(VALUE);
+
+		// TestClass with equal fields succeeds
+		this.iTest.doSomething(propFieldEq(valuesObject));
+		replay(this.iTest);
+		this.iTest.doSomething(this.matchBothTest);
+		verify(this.iTest);
+
+		// TestClass with an equal named field succeeds
+		reset(this.iTest);
+		this.iTest.doSomething(propFieldEq(TestClass.class, PROPERTY, VALUE));
+		replay(this.iTest);
+		this.iTest.doSomething(this.matchTest);
+		verify(this.iTest);
+
+		// TestClass with a non-matching field fails
+		reset(this.iTest);
+		this.iTest.doSomething(propFieldEq(valuesObject, new String[] {INT_PROPERTY}));
+		replay(this.iTest);
+		try
+		{
+			this.iTest.doSomething(this.failTest);
+			verify(this.iTest);
+
+			fail("Non-matching field value should not match.");
+		}
+		catch(final Throwable t)
+		{
+			assertTrue(t instanceof AssertionError);
+		}
+	}
+
 	/**
 	 * Tests the propertyEq method.
 	 */
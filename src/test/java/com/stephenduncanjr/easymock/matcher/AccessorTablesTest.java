@@ -0,0 +1,121 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests AccessorTables with a table written as the processor would generate
+ * it.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class AccessorTablesTest
+{
+	/**
+	 * Marked bean.
+	 */
+	@GenerateAccessors
+	public static class Bean
+	{
+		/**
+		 * @return a constant.
+		 */
+		public String getName()
+		{
+			return "name";
+		}
+
+		/**
+		 * @return never.
+		 */
+		public int getSize()
+		{
+			throw new IllegalStateException("Introspected getter should not be called");
+		}
+	}
+
+	/**
+	 * Table for {@link Bean}, answering a different size to show it is used.
+	 */
+	public static class Bean_PropertyAccessors implements AccessorTable
+	{
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.AccessorTable#getAccessors()
+		 */
+		public Map<String, PropertyAccessor> getAccessors()
+		{
+			final Map<String, PropertyAccessor> accessors = new TreeMap<String, PropertyAccessor>();
+			accessors.put("name", new PropertyAccessor()
+			{
+				public Object getValue(final Object bean)
+				{
+					return ((Bean) bean).getName();
+				}
+			});
+			accessors.put("size", new PropertyAccessor()
+			{
+				public Object getValue(final Object bean)
+				{
+					return Integer.valueOf(7);
+				}
+			});
+			return accessors;
+		}
+	}
+
+	/**
+	 * Marked bean without a generated table.
+	 */
+	@GenerateAccessors
+	public static class Ungenerated
+	{
+		/**
+		 * @return a constant.
+		 */
+		public String getName()
+		{
+			return "name";
+		}
+	}
+
+	/**
+	 * Tests that generated tables are found and used.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testGeneratedTable() throws Exception
+	{
+		assertEquals(AccessorTables.forClass(Bean.class).keySet().toString(), "[name, size]", "Generated table should be loaded.");
+		assertSame(AccessorTables.forClass(Bean.class), AccessorTables.forClass(Bean.class), "Table should be cached.");
+		assertNull(AccessorTables.forClass(Ungenerated.class), "Missing table should fall back to introspection.");
+		assertNull(AccessorTables.forClass(String.class), "Unmarked class should not be looked up.");
+
+		assertEquals(PropertyAccessors.forProperty(Bean.class, "size").getValue(new Bean()), Integer.valueOf(7), "Generated accessor should be used.");
+		assertEquals(PropertyLayout.forClass(Bean.class, Collections.singleton("name")).readValues(new Bean()), Collections.singletonMap("size", Integer.valueOf(7)), "Layout should use generated accessors.");
+		assertTrue(new BeanProperty("name", "name").matches(new Ungenerated()), "Ungenerated class should be introspected.");
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the AdaptiveOrdering.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class AdaptiveOrderingTest
+{
+	/**
+	 * Runs one reordering interval, the first property failing each match.
+	 * 
+	 * @param ordering
+	 * @param secondCost
+	 *        nanoseconds taken by the second property, evaluated only if it
+	 *        comes first.
+	 */
+	private static void firstAlwaysFails(final AdaptiveOrdering ordering, final long secondCost)
+	{
+		for(int i = 0; i < 256; i++)
+		{
+			final boolean timed = ordering.startMatch();
+
+			if(ordering.order()[0] == 1)
+			{
+				ordering.record(1, true, timed ? secondCost : -1);
+			}
+
+			ordering.record(0, false, timed ? 1000 : -1);
+		}
+	}
+
+	/**
+	 * Tests that a property never evaluated is measured once, then ordered by
+	 * its statistics.
+	 */
+	@Test(groups = "unit")
+	public void testExploration()
+	{
+		final AdaptiveOrdering ordering = new AdaptiveOrdering(2);
+
+		firstAlwaysFails(ordering, 10);
+		assertEquals(ordering.order()[0], 1, "Property never evaluated should be moved first.");
+
+		firstAlwaysFails(ordering, 10);
+		assertEquals(ordering.order()[0], 0, "Cheap property that never fails should be ordered behind an expensive one that always fails.");
+	}
+
+	/**
+	 * Tests that a property that never fails is ordered by its cost.
+	 */
+	@Test(groups = "unit")
+	public void testNeverFailingOrderedByCost()
+	{
+		final AdaptiveOrdering ordering = new AdaptiveOrdering(2);
+
+		for(int i = 0; i < 512; i++)
+		{
+			final boolean timed = ordering.startMatch();
+			ordering.record(0, true, timed ? 1 : -1);
+			ordering.record(1, i % 4 != 0, timed ? 100000 : -1);
+		}
+
+		assertEquals(ordering.order()[0], 0, "Very cheap property should be ordered first even if it has never failed.");
+	}
+}
@@ -13,10 +13,16 @@
  */
 package com.stephenduncanjr.easymock.matcher;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.testng.annotations.Test;
@@ -96,6 +102,233 @@ public class BeanPropertyTest
 		}
 	}
 
+	/**
+	 * Bean counting reads of its value property.
+	 */
+	public static class CountingClass extends TestClass
+	{
+		/** Number of reads of the value property. */
+		private int valueReads;
+
+		/**
+		 * Creates a new test object.
+		 * 
+		 * @param value
+		 * @param intValue
+		 */
+		CountingClass(final String value, final int intValue)
+		{
+			super(value);
+			setIntValue(intValue);
+		}
+
+		/**
+		 * @see com.stephenduncanjr.easymock.matcher.BeanPropertyTest.TestClass#getValue()
+		 */
+		@Override
+		public String getValue()
+		{
+			this.valueReads++;
+			return super.getValue();
+		}
+	}
+
+	/**
+	 * Tests that adaptive ordering checks the failing property first without
+	 * changing results.
+	 */
+	@Test(groups = "unit")
+	public void testAdaptiveOrdering()
+	{
+		final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+		properties.put("value", "value1");
+		properties.put("intValue", 2);
+
+		MatcherConfiguration.setAdaptiveOrdering(true);
+
+		try
+		{
+			final BeanProperty beanProperty = new BeanProperty(properties);
+			final CountingClass noMatch = new CountingClass("value1", 1);
+			final CountingClass match = new CountingClass("value1", 2);
+
+			for(int i = 0; i < 1000; i++)
+			{
+				assertFalse(beanProperty.matches(noMatch), "Not equal property value should not match.");
+			}
+
+			final int reads = noMatch.valueReads;
+
+			for(int i = 0; i < 100; i++)
+			{
+				assertFalse(beanProperty.matches(noMatch), "Not equal property value should not match.");
+			}
+
+			assertTrue(beanProperty.matches(match), "All equal property values should match.");
+			assertEquals(noMatch.valueReads, reads, "Failing property should be checked first.");
+		}
+		finally
+		{
+			MatcherConfiguration.setAdaptiveOrdering(false);
+		}
+	}
+
+	/**
+	 * Bean with primitive properties.
+	 */
+	public static class PrimitivesClass
+	{
+		/**
+		 * @return Value of property booleanValue.
+		 */
+		public boolean isBooleanValue()
+		{
+			return true;
+		}
+
+		/**
+		 * @return Value of property charValue.
+		 */
+		public char getCharValue()
+		{
+			return 'c';
+		}
+
+		/**
+		 * @return Value of property doubleValue.
+		 */
+		public double getDoubleValue()
+		{
+			return Double.NaN;
+		}
+
+		/**
+		 * @return Value of property longValue.
+		 */
+		public long getLongValue()
+		{
+			return 1L << 40;
+		}
+
+		/**
+		 * @return Value of property zeroValue.
+		 */
+		public float getZeroValue()
+		{
+			return 0.0f;
+		}
+	}
+
+	/**
+	 * Tests that primitive properties match exactly as their wrappers' equals
+	 * would.
+	 */
+	@Test(groups = "unit")
+	public void testPrimitiveProperties()
+	{
+		final PrimitivesClass test = new PrimitivesClass();
+
+		assertTrue(new BeanProperty("booleanValue", Boolean.TRUE).matches(test), "Equal boolean property should match.");
+		assertTrue(new BeanProperty("charValue", 'c').matches(test), "Equal char property should match.");
+		assertTrue(new BeanProperty("doubleValue", Double.NaN).matches(test), "NaN double property should match NaN.");
+		assertTrue(new BeanProperty("longValue", 1L << 40).matches(test), "Equal long property should match.");
+		assertTrue(new BeanProperty("zeroValue", 0.0f).matches(test), "Equal float property should match.");
+		assertFalse(new BeanProperty("booleanValue", Boolean.FALSE).matches(test), "Not equal boolean property should not match.");
+		assertFalse(new BeanProperty("longValue", (int) (1L << 40)).matches(test), "Integer should not match long property.");
+		assertFalse(new BeanProperty("zeroValue", -0.0f).matches(test), "Negative zero should not match positive zero.");
+		assertFalse(new BeanProperty("charValue", "c").matches(test), "String should not match char property.");
+	}
+
+	/**
+	 * Tests that array and buffer properties match by content.
+	 */
+	@Test(groups = "unit")
+	public void testContentProperties()
+	{
+		final Map<String, Object> payloads = new HashMap<String, Object>();
+		payloads.put("bytes", new byte[] {1, 2, 3});
+		payloads.put("ints", new int[] {1, 2, 3});
+		payloads.put("buffer", ByteBuffer.wrap(new byte[] {0, 1, 2, 3}, 1, 3));
+		payloads.put("names", new String[] {"a", "b"});
+
+		final ByteBuffer direct = ByteBuffer.allocateDirect(3);
+		direct.put(new byte[] {1, 2, 3});
+		direct.rewind();
+
+		assertTrue(new BeanProperty("bytes", new byte[] {1, 2, 3}).matches(payloads), "Equal byte arrays should match.");
+		assertTrue(new BeanProperty("ints", new int[] {1, 2, 3}).matches(payloads), "Equal int arrays should match.");
+		assertTrue(new BeanProperty("names", new String[] {"a", "b"}).matches(payloads), "Equal object arrays should match.");
+		assertTrue(new BeanProperty("buffer", new byte[] {1, 2, 3}).matches(payloads), "Byte array should match remaining buffer content.");
+		assertTrue(new BeanProperty("bytes", direct).matches(payloads), "Buffer should match byte array content.");
+		assertFalse(new BeanProperty("bytes", new byte[] {1, 2, 4}).matches(payloads), "Different byte arrays should not match.");
+		assertFalse(new BeanProperty("ints", new long[] {1, 2, 3}).matches(payloads), "Arrays of different types should not match.");
+	}
+
+	/**
+	 * Tests that fingerprinted values are rejected without equals and still
+	 * match as before.
+	 */
+	@Test(groups = "unit")
+	public void testFingerprints()
+	{
+		final List<String> items = new ArrayList<String>(Arrays.asList("a", "b", "c"))
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean equals(final Object o)
+			{
+				if(o instanceof List && ((List<?>) o).size() != size())
+				{
+					throw new AssertionError("Fingerprint should reject different sizes.");
+				}
+
+				return super.equals(o);
+			}
+		};
+
+		final Map<String, Object> payloads = new HashMap<String, Object>();
+		payloads.put("text", "abcdef");
+		payloads.put("items", Arrays.asList("a", "b", "c"));
+
+		MatcherConfiguration.setFingerprintThreshold(3);
+
+		try
+		{
+			assertTrue(new BeanProperty("text", "abc" + "def").matches(payloads), "Equal large string should match.");
+			assertFalse(new BeanProperty("text", "abcdeg").matches(payloads), "Different large string should not match.");
+			assertTrue(new BeanProperty("items", items).matches(payloads), "Equal large list should match.");
+
+			payloads.put("items", Arrays.asList("a", "b"));
+			assertFalse(new BeanProperty("items", items).matches(payloads), "List of different size should not match.");
+
+			payloads.put("items", "abc");
+			assertFalse(new BeanProperty("items", items).matches(payloads), "Value of another kind should not match.");
+		}
+		finally
+		{
+			MatcherConfiguration.setFingerprintThreshold(Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Tests describing matchers without properties, alone and as an entry of
+	 * a keyed matcher.
+	 */
+	@Test(groups = "unit")
+	public void testEmptyAppender()
+	{
+		final StringBuffer buffer = new StringBuffer();
+		new BeanProperty(new HashMap<String, Object>()).appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyEq()", "Matcher without properties should be described with an empty list.");
+
+		final Map<Integer, Map<String, Object>> table = new HashMap<Integer, Map<String, Object>>();
+		table.put(Integer.valueOf(1), new HashMap<String, Object>());
+		buffer.setLength(0);
+		new KeyedBeanProperty("intValue", table).appendTo(buffer);
+		assertEquals(buffer.toString(), "propEqByKey(intValue, {1=propertyEq()})", "Key without properties should be described with an empty list.");
+	}
+
 	/**
 	 * Tests the appender.
 	 */
@@ -113,6 +346,48 @@ public class BeanPropertyTest
 		assertTrue(buffer.toString().contains(value), "End value should occur in append.");
 	}
 
+	/**
+	 * Tests that the appender shows the value read for the failing property
+	 * without reading it again.
+	 */
+	@Test(groups = "unit")
+	public void testAppenderMismatch()
+	{
+		final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+		properties.put("value", "value1");
+		properties.put("intValue", 2);
+		properties.put("missing", "value1");
+
+		final BeanProperty beanProperty = new BeanProperty(properties);
+		final CountingClass wrongValue = new CountingClass("value2", 2);
+
+		assertFalse(beanProperty.matches(wrongValue), "Not equal property value should not match.");
+		final int reads = wrongValue.valueReads;
+
+		StringBuffer buffer = new StringBuffer();
+		beanProperty.appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyEq(value=value1 [actual: value2], intValue=2, missing=value1)");
+		assertEquals(wrongValue.valueReads, reads, "Appending should not read properties.");
+
+		assertFalse(beanProperty.matches(new CountingClass("value1", 3)), "Not equal primitive property value should not match.");
+		buffer = new StringBuffer();
+		beanProperty.appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyEq(value=value1, intValue=2 [actual: 3], missing=value1)");
+
+		assertFalse(beanProperty.matches(new CountingClass("value1", 2)), "Missing property should not match.");
+		buffer = new StringBuffer();
+		beanProperty.appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyEq(value=value1, intValue=2, missing=value1 [actual: no such property])");
+
+		properties.remove("missing");
+		final BeanProperty matching = new BeanProperty(properties);
+		assertFalse(matching.matches(wrongValue), "Not equal property value should not match.");
+		assertTrue(matching.matches(new CountingClass("value1", 2)), "All equal property values should match.");
+		buffer = new StringBuffer();
+		matching.appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyEq(value=value1, intValue=2)");
+	}
+
 	/**
 	 * TestClass for mulitple properties provided as a map.
 	 */
@@ -180,6 +455,33 @@ public class BeanPropertyTest
 		assertFalse(beanProperty.matches(noMatchTest), "Not equal integer property value should not match.");
 	}
 
+	/**
+	 * Tests that one matcher keeps matching correctly when the argument class
+	 * changes between calls.
+	 */
+	@Test(groups = "unit")
+	public void testChangingArgumentClass()
+	{
+		final BeanProperty beanProperty = new BeanProperty("value", "testValue");
+
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("value", "testValue");
+
+		final TestClass subclass = new TestClass("testValue")
+		{
+			// Anonymous subclass to give a different runtime class
+		};
+
+		for(int i = 0; i < 3; i++)
+		{
+			assertTrue(beanProperty.matches(new TestClass("testValue")), "Equal property value should match.");
+			assertTrue(beanProperty.matches(map), "Equal map value should match.");
+			assertTrue(beanProperty.matches(subclass), "Equal subclass property value should match.");
+			assertFalse(beanProperty.matches(new Object()), "Object that does not have property should not match.");
+			assertFalse(beanProperty.matches(new TestClass("badTestValue")), "Not equal property value should not match.");
+		}
+	}
+
 	/**
 	 * Tests null handling.
 	 */
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the ClassCache.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class ClassCacheTest
+{
+	/**
+	 * Class loaded again by a throwaway class loader.
+	 */
+	public static class Unloadable
+	{
+		// Loaded by the unloading test
+	}
+
+	/**
+	 * Class loader defining its own copy of {@link Unloadable}.
+	 */
+	private static class ThrowawayLoader extends ClassLoader
+	{
+		/**
+		 * @param parent
+		 */
+		ThrowawayLoader(final ClassLoader parent)
+		{
+			super(parent);
+		}
+
+		/**
+		 * @return a copy of {@link Unloadable} defined by this loader.
+		 * @throws IOException
+		 */
+		Class<?> defineUnloadable() throws IOException
+		{
+			final InputStream in = Unloadable.class.getResourceAsStream("ClassCacheTest$Unloadable.class");
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			try
+			{
+				final byte[] buffer = new byte[4096];
+
+				for(int read = in.read(buffer); read >= 0; read = in.read(buffer))
+				{
+					bytes.write(buffer, 0, read);
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+
+			return defineClass(Unloadable.class.getName(), bytes.toByteArray(), 0, bytes.size());
+		}
+	}
+
+	/** Classes to fill caches with. */
+	private static final Class<?>[] CLASSES = {String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class, Character.class, Boolean.class, Object.class, Number.class, Thread.class, Math.class, StringBuffer.class, StringBuilder.class, System.class, Runtime.class, Void.class, Class.class, Enum.class};
+
+	/**
+	 * Tests lookups and counters.
+	 */
+	@Test(groups = "unit")
+	public void testGetAndPut()
+	{
+		final ClassCache<String> cache = new ClassCache<String>("test");
+
+		assertNull(cache.get(String.class), "Empty cache should have no value.");
+		assertEquals(cache.putIfAbsent(String.class, "first"), "first", "New value should be cached.");
+		assertEquals(cache.putIfAbsent(String.class, "second"), "first", "Existing value should be kept.");
+		assertEquals(cache.get(String.class), "first", "Cached value should be found.");
+
+		assertEquals(cache.getHitCount(), 1L);
+		assertEquals(cache.getMissCount(), 1L);
+		assertEquals(cache.size(), 1);
+		assertTrue(ClassCache.getCaches().contains(cache), "Cache should be listed.");
+	}
+
+	/**
+	 * Tests that full caches drop the least recently or least frequently used
+	 * classes.
+	 */
+	@Test(groups = "unit")
+	public void testEviction()
+	{
+		MatcherConfiguration.setClassCacheSize(8);
+
+		try
+		{
+			for(final EvictionPolicy policy : EvictionPolicy.values())
+			{
+				MatcherConfiguration.setEvictionPolicy(policy);
+				final ClassCache<String> cache = new ClassCache<String>("test");
+
+				for(final Class<?> type : CLASSES)
+				{
+					cache.putIfAbsent(type, type.getName());
+					assertNotNull(cache.get(CLASSES[0]), "Used class should be kept under " + policy + ".");
+				}
+
+				assertTrue(cache.size() <= 8, "Cache should stay bounded under " + policy + ".");
+				assertTrue(cache.getEvictionCount() >= CLASSES.length - 8, "Evictions should be counted under " + policy + ".");
+			}
+		}
+		finally
+		{
+			MatcherConfiguration.setClassCacheSize(MatcherConfiguration.DEFAULT_CLASS_CACHE_SIZE);
+			MatcherConfiguration.setEvictionPolicy(EvictionPolicy.LEAST_RECENTLY_USED);
+		}
+	}
+
+	/**
+	 * Tests that cached classes and their loaders can be unloaded.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testUnloading() throws Exception
+	{
+		final ClassCache<String> cache = new ClassCache<String>("test");
+		ThrowawayLoader loader = new ThrowawayLoader(getClass().getClassLoader());
+		final WeakReference<ClassLoader> loaderReference = new WeakReference<ClassLoader>(loader);
+		cache.putIfAbsent(loader.defineUnloadable(), "unloadable");
+		loader = null;
+
+		for(int i = 0; i < 50 && loaderReference.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(loaderReference.get(), "Cache should not keep the class loader alive.");
+
+		cache.putIfAbsent(String.class, "string");
+		assertEquals(cache.size(), 1, "Unloaded class should be removed.");
+		assertEquals(cache.getEvictionCount(), 1L);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the DeepBeanProperty matcher.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class DeepBeanPropertyTest
+{
+	/**
+	 * Tree node with a back reference to its parent.
+	 */
+	public static class Node
+	{
+		/** Child nodes. */
+		private final List<Node> children = new ArrayList<Node>();
+
+		/** Name. */
+		private final String name;
+
+		/** Parent node. */
+		private Node parent;
+
+		/** Scores. */
+		private int[] scores = new int[] {1, 2};
+
+		/**
+		 * @param name
+		 */
+		Node(final String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * Adds a child node.
+		 * 
+		 * @param child
+		 * @return the child.
+		 */
+		Node add(final Node child)
+		{
+			child.parent = this;
+			this.children.add(child);
+			return child;
+		}
+
+		/**
+		 * @return Value of property children.
+		 */
+		public List<Node> getChildren()
+		{
+			return this.children;
+		}
+
+		/**
+		 * @return Value of property name.
+		 */
+		public String getName()
+		{
+			return this.name;
+		}
+
+		/**
+		 * @return Value of property parent.
+		 */
+		public Node getParent()
+		{
+			return this.parent;
+		}
+
+		/**
+		 * @return Value of property scores.
+		 */
+		public int[] getScores()
+		{
+			return this.scores;
+		}
+	}
+
+	/**
+	 * Builds a two-level tree.
+	 * 
+	 * @param leafName
+	 * @return the root.
+	 */
+	private static Node tree(final String leafName)
+	{
+		final Node root = new Node("root");
+		root.add(new Node("a")).add(new Node(leafName));
+		root.add(new Node("b"));
+		return root;
+	}
+
+	/**
+	 * Creates a matcher for the properties of the given node.
+	 * 
+	 * @param node
+	 * @param maxDepth
+	 * @param ignored
+	 * @return the matcher.
+	 */
+	private static DeepBeanProperty matcher(final Node node, final int maxDepth, final Map<Class<?>, ? extends Collection<String>> ignored)
+	{
+		final Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("name", node.getName());
+		properties.put("parent", node.getParent());
+		properties.put("children", node.getChildren());
+		properties.put("scores", node.getScores());
+		return new DeepBeanProperty(properties, maxDepth, ignored);
+	}
+
+	/**
+	 * Tests matching cyclic graphs.
+	 */
+	@Test(groups = "unit")
+	public void testCyclicGraph()
+	{
+		final Map<Class<?>, List<String>> none = Collections.emptyMap();
+		final DeepBeanProperty matcher = matcher(tree("leaf"), DeepBeanProperty.UNLIMITED, none);
+
+		assertTrue(matcher.matches(tree("leaf")), "Equal graphs should match.");
+		assertFalse(matcher.matches(tree("other")), "Graphs differing in a leaf should not match.");
+
+		final Node extraChild = tree("leaf");
+		extraChild.add(new Node("c"));
+		assertFalse(matcher.matches(extraChild), "Graphs differing in list size should not match.");
+
+		final Node otherScores = tree("leaf");
+		otherScores.scores = new int[] {1, 3};
+		assertFalse(matcher.matches(otherScores), "Graphs differing in array content should not match.");
+		assertFalse(matcher.matches(null), "Null should not match.");
+		final StringBuffer buffer = new StringBuffer();
+		new DeepBeanProperty(new HashMap<String, Object>(), DeepBeanProperty.UNLIMITED, none).appendTo(buffer);
+		assertEquals(buffer.toString(), "propertyDeepEq()", "Matcher without properties should be described with an empty list.");
+	}
+
+	/**
+	 * Tests the depth limit and ignore rules.
+	 */
+	@Test(groups = "unit")
+	public void testDepthAndIgnores()
+	{
+		final Map<Class<?>, List<String>> none = Collections.emptyMap();
+
+		assertFalse(matcher(tree("leaf"), 1, none).matches(tree("leaf")), "Depth 1 should compare the top-level values with equals.");
+
+		final Node expected = tree("leaf");
+		final Node sharingChildren = new Node("root");
+		sharingChildren.getChildren().addAll(expected.getChildren());
+		sharingChildren.scores = expected.getScores().clone();
+		assertTrue(matcher(expected, 2, none).matches(sharingChildren), "Values at the depth limit should be compared with equals.");
+		assertTrue(matcher(expected, 1, none).matches(sharingChildren), "Arrays at the depth limit should be compared by content.");
+
+		final Map<Class<?>, List<String>> ignored = new HashMap<Class<?>, List<String>>();
+		ignored.put(Node.class, Arrays.asList("name"));
+		assertTrue(matcher(tree("leaf"), DeepBeanProperty.UNLIMITED, ignored).matches(tree("other")), "Ignored nested properties should not be compared.");
+	}
+
+	/**
+	 * Tests that a long chain is matched without overflowing the stack.
+	 */
+	@Test(groups = "unit")
+	public void testLargeGraph()
+	{
+		final Map<Class<?>, List<String>> none = Collections.emptyMap();
+		final Node expected = new Node("root");
+		final Node actual = new Node("root");
+		Node expectedTail = expected;
+		Node actualTail = actual;
+
+		for(int i = 0; i < 20000; i++)
+		{
+			expectedTail = expectedTail.add(new Node("n" + i));
+			actualTail = actualTail.add(new Node("n" + i));
+		}
+
+		assertTrue(matcher(expected, DeepBeanProperty.UNLIMITED, none).matches(actual), "Long equal chains should match.");
+
+		actualTail.add(new Node("extra"));
+		assertFalse(matcher(expected, DeepBeanProperty.UNLIMITED, none).matches(actual), "Long chains differing at the end should not match.");
+	}
+}
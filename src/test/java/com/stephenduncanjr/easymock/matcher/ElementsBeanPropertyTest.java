@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.stephenduncanjr.easymock.matcher.BeanPropertyTest.TestClass;
+
+/**
+ * Tests the ElementsBeanProperty matcher.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class ElementsBeanPropertyTest
+{
+	/**
+	 * Builds a list of matching elements with one non-matching element.
+	 * 
+	 * @param size
+	 * @param failing
+	 *        index of the non-matching element, or -1 for none.
+	 * @return the list.
+	 */
+	private static List<TestClass> elements(final int size, final int failing)
+	{
+		final List<TestClass> elements = new ArrayList<TestClass>(size);
+
+		for(int i = 0; i < size; i++)
+		{
+			elements.add(new TestClass(i == failing ? "badValue" : "value1"));
+		}
+
+		return elements;
+	}
+
+	/**
+	 * Tests the appender.
+	 */
+	@Test(groups = "unit")
+	public void testAppender()
+	{
+		final StringBuffer buffer = new StringBuffer();
+		new ElementsBeanProperty(new BeanProperty("value", "value1"), false).appendTo(buffer);
+		assertEquals(buffer.toString(), "any(propertyEq(value=value1))");
+	}
+
+	/**
+	 * Tests matching each and any element sequentially.
+	 */
+	@Test(groups = "unit")
+	public void testElements()
+	{
+		final ElementsBeanProperty each = new ElementsBeanProperty(new BeanProperty("value", "value1"), true);
+		final ElementsBeanProperty any = new ElementsBeanProperty(new BeanProperty("value", "value1"), false);
+
+		assertTrue(each.matches(elements(10, -1)), "All matching elements should match each.");
+		assertFalse(each.matches(elements(10, 5)), "A non-matching element should not match each.");
+		assertTrue(any.matches(elements(10, 5)), "A matching element should match any.");
+		assertFalse(any.matches(Collections.singleton(new TestClass("badValue"))), "No matching element should not match any.");
+
+		assertTrue(each.matches(new LinkedList<TestClass>()), "No elements should match each.");
+		assertFalse(any.matches(new TestClass[0]), "No elements should not match any.");
+		assertTrue(each.matches(elements(3, -1).toArray()), "Matching array elements should match each.");
+		assertFalse(each.matches(null), "Null should not match.");
+		assertFalse(each.matches(new TestClass("value1")), "A single bean should not match.");
+	}
+
+	/**
+	 * Tests that the parallel threshold must be positive, and that empty
+	 * lists are matched at the lowest threshold.
+	 */
+	@Test(groups = "unit")
+	public void testParallelEmpty()
+	{
+		try
+		{
+			MatcherConfiguration.setParallelThreshold(0);
+			fail("Threshold 0 should be rejected.");
+		}
+		catch(final IllegalArgumentException e)
+		{
+			assertEquals(MatcherConfiguration.getParallelThreshold(), MatcherConfiguration.DEFAULT_PARALLEL_THRESHOLD, "Rejected threshold should not be set.");
+		}
+
+		MatcherConfiguration.setParallelThreshold(1);
+
+		try
+		{
+			final List<TestClass> empty = Collections.emptyList();
+
+			assertTrue(new ElementsBeanProperty(new BeanProperty("value", "value1"), true).matches(empty), "An empty list should match each.");
+			assertFalse(new ElementsBeanProperty(new BeanProperty("value", "value1"), false).matches(empty), "An empty list should not match any.");
+			assertFalse(new ElementsBeanProperty(new BeanProperty("value", "value1"), false).matches(new Object[0]), "An empty array should not match any.");
+		}
+		finally
+		{
+			MatcherConfiguration.setParallelThreshold(MatcherConfiguration.DEFAULT_PARALLEL_THRESHOLD);
+		}
+	}
+
+	/**
+	 * Tests matching elements on several threads.
+	 */
+	@Test(groups = "unit")
+	public void testParallelElements()
+	{
+		MatcherConfiguration.setParallelThreshold(100);
+
+		try
+		{
+			final ElementsBeanProperty each = new ElementsBeanProperty(new BeanProperty("value", "value1"), true);
+			final ElementsBeanProperty any = new ElementsBeanProperty(new BeanProperty("value", "badValue"), false);
+
+			assertTrue(each.matches(elements(5000, -1)), "All matching elements should match each.");
+			assertFalse(each.matches(elements(5000, 4999)), "A non-matching last element should not match each.");
+			assertFalse(each.matches(new LinkedList<TestClass>(elements(5000, 0))), "A non-matching first element should not match each.");
+			assertTrue(any.matches(elements(5000, 2500)), "A matching element should match any.");
+			assertFalse(any.matches(elements(5000, -1).toArray()), "No matching element should not match any.");
+
+			final StringBuffer buffer = new StringBuffer();
+			assertFalse(each.matches(elements(5000, 3000)), "A non-matching element should not match each.");
+			each.appendTo(buffer);
+			assertEquals(buffer.toString(), "each(propertyEq(value=value1 [actual: badValue]))", "The non-matching element should be described.");
+		}
+		finally
+		{
+			MatcherConfiguration.setParallelThreshold(MatcherConfiguration.DEFAULT_PARALLEL_THRESHOLD);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests FieldAccessors and field matching.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class FieldAccessorsTest
+{
+	/**
+	 * Value class without getters.
+	 */
+	public static class Base
+	{
+		/** Shared instance counter, not matched. */
+		static int instances;
+
+		/** Code. */
+		private final String code;
+
+		/** Amount. */
+		private final double amount;
+
+		/**
+		 * @param code
+		 * @param amount
+		 */
+		Base(final String code, final double amount)
+		{
+			this.code = code;
+			this.amount = amount;
+			instances++;
+		}
+	}
+
+	/**
+	 * Subclass with a getter that must not be called.
+	 */
+	public static class Derived extends Base
+	{
+		/** Nested value. */
+		private final Base parent;
+
+		/**
+		 * @param code
+		 * @param amount
+		 * @param parent
+		 */
+		Derived(final String code, final double amount, final Base parent)
+		{
+			super(code, amount);
+			this.parent = parent;
+		}
+
+		/**
+		 * @return never.
+		 */
+		public String getCode()
+		{
+			throw new IllegalStateException("Getter should not be called");
+		}
+	}
+
+	/**
+	 * Tests resolving field accessors.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testForField() throws Exception
+	{
+		final Derived derived = new Derived("a", 1.5, null);
+
+		assertEquals(FieldAccessors.forField(Derived.class, "code").getValue(derived), "a", "Superclass field should be read.");
+		assertTrue(FieldAccessors.forField(Derived.class, "amount") instanceof PrimitivePropertyAccessor, "Primitive field should be read as bits.");
+		assertSame(FieldAccessors.forField(Derived.class, "code"), FieldAccessors.forField(Derived.class, "code"), "Accessor should be cached.");
+		assertSame(FieldAccessors.forField(Derived.class, "missing").getValue(derived), PropertyAccessors.NO_SUCH_PROPERTY, "Missing field should not be readable.");
+		assertSame(FieldAccessors.forField(Derived.class, "instances").getValue(derived), PropertyAccessors.NO_SUCH_PROPERTY, "Static field should not be readable.");
+		assertEquals(new HashSet<String>(FieldAccessors.fieldNames(Derived.class)), new HashSet<String>(Arrays.asList("code", "amount", "parent")), "Instance fields should be listed.");
+	}
+
+	/**
+	 * Tests matching fields without calling getters.
+	 */
+	@Test(groups = "unit")
+	public void testFieldMatching()
+	{
+		final Derived expected = new Derived("a", 1.5, new Base("p", 2));
+		final BeanProperty matcher = new BeanProperty(PropertyLayout.forFields(Derived.class, Collections.singleton("parent")), expected, false);
+
+		assertTrue(matcher.matches(new Derived("a", 1.5, null)), "Equal fields should match.");
+		assertFalse(matcher.matches(new Derived("a", 2.5, null)), "Different primitive field should not match.");
+
+		final Map<String, Object> nested = new HashMap<String, Object>();
+		nested.put("parent.code", "p");
+		final BeanProperty nestedMatcher = new BeanProperty(nested, true);
+
+		assertTrue(nestedMatcher.matches(expected), "Equal nested field should match.");
+		assertFalse(nestedMatcher.matches(new Derived("a", 1.5, null)), "Null nested object should not match.");
+
+		final StringBuffer buffer = new StringBuffer();
+		nestedMatcher.appendTo(buffer);
+		assertTrue(buffer.toString().startsWith("fieldEq(parent.code=p"), "Field matchers should be described as such.");
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests GeneratedMatchers and matching with generated code.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class GeneratedMatchersTest
+{
+	/**
+	 * Bean with properties of several types.
+	 */
+	public static class Sample
+	{
+		/** Count. */
+		private final int count;
+
+		/** Amount. */
+		private final double amount;
+
+		/** Name. */
+		private final String name;
+
+		/**
+		 * @param count
+		 * @param amount
+		 * @param name
+		 */
+		Sample(final int count, final double amount, final String name)
+		{
+			this.count = count;
+			this.amount = amount;
+			this.name = name;
+		}
+
+		/**
+		 * @return the amount.
+		 */
+		public double getAmount()
+		{
+			return this.amount;
+		}
+
+		/**
+		 * @return the count.
+		 */
+		public int getCount()
+		{
+			return this.count;
+		}
+
+		/**
+		 * @return the name.
+		 */
+		public String getName()
+		{
+			if("fail".equals(this.name))
+			{
+				throw new IllegalStateException("Failing getter");
+			}
+
+			return this.name;
+		}
+
+		/**
+		 * @return this, for nested paths.
+		 */
+		public Sample getSelf()
+		{
+			return this;
+		}
+	}
+
+	/**
+	 * Bean whose class is not public, so generated code cannot call it.
+	 */
+	static class Hidden
+	{
+		/**
+		 * @return a constant.
+		 */
+		public String getName()
+		{
+			return "hidden";
+		}
+	}
+
+	/**
+	 * Tests generating comparisons and when generation is declined.
+	 */
+	@Test(groups = "unit")
+	public void testForClass()
+	{
+		final PropertyPath[] paths = new PropertyPath[] {new PropertyPath("count"), new PropertyPath("name")};
+		final ExpectedValues expected = new ExpectedValues(new Object[] {Integer.valueOf(1), "a"});
+		final CompiledMatcher matcher = GeneratedMatchers.forClass(Sample.class, paths, expected);
+
+		assertNotNull(matcher, "Public getters should be compiled.");
+		assertSame(GeneratedMatchers.forClass(Sample.class, paths, expected), matcher, "Compiled matcher should be cached.");
+
+		final Object[] mismatch = new Object[1];
+		assertEquals(matcher.match(new Sample(1, 0, "a"), expected.getValueArray(), expected.getBitArray(), mismatch), -1, "Equal properties should match.");
+		assertEquals(matcher.match(new Sample(2, 0, "a"), expected.getValueArray(), expected.getBitArray(), mismatch), 0, "Different primitive should fail first.");
+		assertEquals(mismatch[0], Integer.valueOf(2), "Actual primitive should be reported boxed.");
+		assertEquals(matcher.match(new Sample(1, 0, "b"), expected.getValueArray(), expected.getBitArray(), mismatch), 1, "Different object should fail.");
+		assertEquals(mismatch[0], "b", "Actual object should be reported.");
+		assertEquals(matcher.match(new Sample(1, 0, "fail"), expected.getValueArray(), expected.getBitArray(), mismatch), -3, "Throwing getter should be reported with its index.");
+		assertTrue(mismatch[0] instanceof IllegalStateException, "Getter exception should be reported.");
+
+		assertNull(GeneratedMatchers.forClass(Hidden.class, new PropertyPath[] {new PropertyPath("name")}, new ExpectedValues(new Object[] {"hidden"})), "Non-public class should not be compiled.");
+		assertNull(GeneratedMatchers.forClass(Sample.class, new PropertyPath[] {new PropertyPath("self.name")}, new ExpectedValues(new Object[] {"a"})), "Nested path should not be compiled.");
+		assertNull(GeneratedMatchers.forClass(Sample.class, new PropertyPath[] {new PropertyPath("missing")}, new ExpectedValues(new Object[] {"a"})), "Missing property should not be compiled.");
+	}
+
+	/**
+	 * Tests that matchers using generated code behave like reflective ones.
+	 */
+	@Test(groups = "unit")
+	public void testGeneratedMatching()
+	{
+		MatcherConfiguration.setGeneratedMatchers(true);
+
+		try
+		{
+			final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+			properties.put("amount", Double.valueOf(1.5));
+			properties.put("count", Long.valueOf(3));
+			properties.put("name", null);
+			final BeanProperty matcher = new BeanProperty(properties);
+
+			assertFalse(matcher.matches(new Sample(3, 1.5, null)), "Boxed long should not equal an int property.");
+
+			properties.put("count", Integer.valueOf(3));
+			final BeanProperty intMatcher = new BeanProperty(properties);
+
+			assertTrue(intMatcher.matches(new Sample(3, 1.5, null)), "Equal properties should match.");
+			assertFalse(intMatcher.matches(new Sample(3, 2.5, null)), "Different double should not match.");
+
+			final StringBuffer buffer = new StringBuffer();
+			intMatcher.appendTo(buffer);
+			assertTrue(buffer.toString().contains("amount=1.5 [actual: 2.5]"), "Mismatch should be described: " + buffer);
+
+			assertFalse(intMatcher.matches(new Sample(3, 1.5, "fail")), "Throwing getter should not match.");
+			buffer.setLength(0);
+			intMatcher.appendTo(buffer);
+			assertTrue(buffer.toString().contains("name=null [actual: threw java.lang.IllegalStateException: Failing getter]"), "Getter exception should be described: " + buffer);
+			assertTrue(new BeanProperty("self.name", "a").matches(new Sample(3, 1.5, "a")), "Nested path should match reflectively.");
+		}
+		finally
+		{
+			MatcherConfiguration.setGeneratedMatchers(false);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests IterableContent.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class IterableContentTest
+{
+	/**
+	 * Iterable over a list that counts the elements read from it.
+	 */
+	private static class CountingIterable implements Iterable<String>
+	{
+		/** The elements. */
+		private final List<String> elements;
+
+		/** Number of elements read. */
+		int read;
+
+		/**
+		 * @param elements
+		 */
+		CountingIterable(final String... elements)
+		{
+			this.elements = Arrays.asList(elements);
+		}
+
+		/**
+		 * @see java.lang.Iterable#iterator()
+		 */
+		public Iterator<String> iterator()
+		{
+			final Iterator<String> iterator = this.elements.iterator();
+
+			return new Iterator<String>()
+			{
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				public String next()
+				{
+					CountingIterable.this.read++;
+					return iterator.next();
+				}
+
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Tests matching in any order.
+	 */
+	@Test(groups = "unit")
+	public void testInAnyOrder()
+	{
+		final IterableContent content = IterableContent.inAnyOrder(Arrays.asList("a", "b", "a", null));
+
+		assertTrue(content.matches(new CountingIterable("b", "a", null, "a")), "Same elements in another order should match.");
+		assertTrue(content.matches(new String[] {"a", null, "a", "b"}), "Array with the same elements should match.");
+		assertFalse(content.matches(new CountingIterable("a", "b", "b", null)), "Different counts should not match.");
+		assertFalse(content.matches(new CountingIterable("a", "b", null)), "Fewer elements should not match.");
+		assertFalse(content.matches(new CountingIterable("a", "b", "a", null, "a")), "More elements should not match.");
+
+		final CountingIterable actual = new CountingIterable("c", "a", "b", "a");
+		assertFalse(content.matches(actual), "Unexpected element should not match.");
+		assertEquals(actual.read, 1, "Comparison should stop at the unexpected element.");
+
+		assertTrue(content.matches(Stream.of("a", "a", null, "b")), "Stream with the same elements should match.");
+		assertFalse(content.matches(Arrays.asList("a", "b", "a", null, "c")), "Collection of another size should not match.");
+		assertFalse(content.matches(new String[] {"a", "b", "b", null}), "Array with different counts should not match.");
+	}
+
+	/**
+	 * Tests matching in order, as a property value.
+	 */
+	@Test(groups = "unit")
+	public void testInOrder()
+	{
+		final IterableContent content = IterableContent.inOrder(Arrays.asList("a", "b", "c"));
+
+		final CountingIterable actual = new CountingIterable("a", "x", "c");
+		assertFalse(content.matches(actual), "Different element should not match.");
+		assertEquals(actual.read, 2, "Comparison should stop at the first difference.");
+
+		assertTrue(content.matches(new CountingIterable("a", "b", "c")), "Same elements should match.");
+		assertFalse(content.matches(new CountingIterable("a", "b")), "Fewer elements should not match.");
+		assertFalse(content.matches(new CountingIterable("a", "b", "c", "d")), "More elements should not match.");
+		assertFalse(content.matches("abc"), "Non-iterable should not match.");
+		assertTrue(content.matches(Stream.of("a", "b", "c")), "Stream with the same elements should match.");
+		assertFalse(content.matches(Stream.of("a", "c")), "Stream with other elements should not match.");
+
+		final Map<String, Object> order = new HashMap<String, Object>();
+		order.put("lines", new CountingIterable("a", "b", "c"));
+
+		assertTrue(new BeanProperty("lines", content).matches(order), "Property with the same elements should match.");
+		assertFalse(new BeanProperty("lines", IterableContent.inOrder(Arrays.asList("c", "b", "a"))).matches(order), "Property with elements in another order should not match.");
+		assertEquals(content.toString(), "inOrder([a, b, c])", "Content should describe itself.");
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests MatcherStatistics and matcher instrumentation.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class MatcherStatisticsTest
+{
+	/**
+	 * Bean with a fast, a slow and a throwing getter.
+	 */
+	public static class Sample
+	{
+		/**
+		 * @return a constant.
+		 */
+		public String getFast()
+		{
+			return "fast";
+		}
+
+		/**
+		 * @return a constant, slowly.
+		 * @throws InterruptedException
+		 */
+		public String getSlow() throws InterruptedException
+		{
+			Thread.sleep(5);
+			return "slow";
+		}
+
+		/**
+		 * @return never.
+		 */
+		public String getBroken()
+		{
+			throw new IllegalStateException("Broken getter");
+		}
+	}
+
+	/**
+	 * Tests that generated and adaptive matches are instrumented, and that a
+	 * class without generated code is reported once.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testInstrumentedPaths() throws Exception
+	{
+		final MatcherStatistics statistics = MatcherStatistics.install();
+		MatcherConfiguration.setGeneratedMatchers(true);
+
+		try
+		{
+			final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+			properties.put("fast", "fast");
+			properties.put("slow", "other");
+			final BeanProperty generated = new BeanProperty(properties);
+
+			assertFalse(generated.matches(new Sample()), "Generated matcher should not match.");
+			assertFalse(generated.matches(new Sample()), "Generated matcher should not match again.");
+			assertEquals(statistics.getGetterInvocationCount(), 4, "Getters called by generated code should be counted.");
+			assertEquals(statistics.getFallbackCount(), 0, "Generated matches should not count as fallbacks.");
+
+			final BeanProperty nested = new BeanProperty("fast.empty", Boolean.FALSE);
+
+			for(int i = 0; i < 3; i++)
+			{
+				assertTrue(nested.matches(new Sample()), "Reflective matcher should match.");
+			}
+
+			assertEquals(statistics.getFallbackCount(), 1, "Missing generated code should be reported once per class.");
+
+			MatcherConfiguration.setAdaptiveOrdering(true);
+			final BeanProperty adaptive = new BeanProperty(properties);
+
+			assertFalse(adaptive.matches(new Sample()), "Adaptive matcher should not match.");
+			assertEquals(statistics.getGetterInvocationCount(), 9, "Getters called in adaptive order should be counted.");
+			assertEquals(statistics.getMatchCount(), 6, "Every match should be counted.");
+		}
+		finally
+		{
+			MatcherConfiguration.setAdaptiveOrdering(false);
+			MatcherConfiguration.setGeneratedMatchers(false);
+			MatcherConfiguration.setListener(null);
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MatcherStatistics.OBJECT_NAME));
+		}
+	}
+
+	/**
+	 * Tests counting matches and reporting slow getters through JMX.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testStatistics() throws Exception
+	{
+		final MatcherStatistics statistics = MatcherStatistics.install();
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(MatcherStatistics.OBJECT_NAME);
+
+		try
+		{
+			final Map<String, Object> properties = new HashMap<String, Object>();
+			properties.put("fast", "fast");
+			properties.put("slow", "slow");
+			final BeanProperty matcher = new BeanProperty(properties);
+
+			assertTrue(matcher.matches(new Sample()), "Instrumented matcher should match.");
+			assertTrue(matcher.matches(new Sample()), "Instrumented matcher should match again.");
+			assertFalse(new BeanProperty("broken", "x").matches(new Sample()), "Throwing getter should not match.");
+
+			assertEquals(statistics.getMatchCount(), 3, "Every match should be counted.");
+			assertEquals(statistics.getHitCount(), 2, "Hits should be counted.");
+			assertEquals(statistics.getMissCount(), 1, "Misses should be counted.");
+			assertEquals(statistics.getGetterInvocationCount(), 5, "Every getter call should be counted.");
+			assertEquals(statistics.getFallbackCount(), 1, "Throwing getter should count as a fallback.");
+			assertTrue(statistics.slowestGetters(1)[0].startsWith(Sample.class.getName() + "#slow "), "Slow getter should be listed first.");
+
+			assertEquals(server.getAttribute(name, "MatchCount"), Long.valueOf(3), "Statistics should be readable through JMX.");
+			assertTrue(((String[]) server.getAttribute(name, "CacheStatistics")).length > 0, "Cache statistics should be exposed.");
+
+			server.invoke(name, "reset", new Object[0], new String[0]);
+			assertEquals(statistics.getMatchCount(), 0, "Reset should clear statistics.");
+			assertEquals(statistics.getPropertyStatistics().length, 0, "Reset should clear property statistics.");
+		}
+		finally
+		{
+			MatcherConfiguration.setListener(null);
+			server.unregisterMBean(name);
+		}
+	}
+}
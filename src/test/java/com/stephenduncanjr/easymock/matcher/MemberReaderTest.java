@@ -0,0 +1,271 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests MemberReader, in whichever engine the class path provides.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class MemberReaderTest
+{
+	/**
+	 * Bean with a private field, a primitive getter and a throwing getter.
+	 */
+	public static class Bean
+	{
+		/** Private value. */
+		private final String hidden = "hidden";
+
+		/**
+		 * @return a constant.
+		 */
+		public int getCount()
+		{
+			return 3;
+		}
+
+		/**
+		 * @return never.
+		 */
+		public String getBroken()
+		{
+			throw new IllegalStateException("Broken getter");
+		}
+	}
+
+	/**
+	 * Bean with a field and a getter of each primitive type.
+	 */
+	public static class Primitives
+	{
+		/** Value. */
+		boolean booleanValue = true;
+
+		/** Value. */
+		byte byteValue = -3;
+
+		/** Value. */
+		char charValue = '\uffff';
+
+		/** Value. */
+		double doubleValue = Double.NaN;
+
+		/** Value. */
+		float floatValue = -1.5f;
+
+		/** Value. */
+		int intValue = -7;
+
+		/** Value. */
+		long longValue = Long.MIN_VALUE;
+
+		/** Value. */
+		short shortValue = -9;
+
+		/**
+		 * @return Value of property booleanValue.
+		 */
+		public boolean getBooleanValue()
+		{
+			return this.booleanValue;
+		}
+
+		/**
+		 * @return Value of property byteValue.
+		 */
+		public byte getByteValue()
+		{
+			return this.byteValue;
+		}
+
+		/**
+		 * @return Value of property charValue.
+		 */
+		public char getCharValue()
+		{
+			return this.charValue;
+		}
+
+		/**
+		 * @return Value of property doubleValue.
+		 */
+		public double getDoubleValue()
+		{
+			return this.doubleValue;
+		}
+
+		/**
+		 * @return Value of property floatValue.
+		 */
+		public float getFloatValue()
+		{
+			return this.floatValue;
+		}
+
+		/**
+		 * @return Value of property intValue.
+		 */
+		public int getIntValue()
+		{
+			return this.intValue;
+		}
+
+		/**
+		 * @return Value of property longValue.
+		 */
+		public long getLongValue()
+		{
+			return this.longValue;
+		}
+
+		/**
+		 * @return Value of property shortValue.
+		 */
+		public short getShortValue()
+		{
+			return this.shortValue;
+		}
+	}
+
+	/**
+	 * Reads a member as an object or as bits.
+	 * 
+	 * @param reader
+	 * @param bean
+	 * @param bits
+	 *        whether to read bits.
+	 * @return the value read.
+	 * @throws Exception
+	 */
+	private static Object read(final MemberReader reader, final Object bean, final boolean bits) throws Exception
+	{
+		return bits ? Long.valueOf(reader.readBits(bean)) : reader.read(bean);
+	}
+
+	/**
+	 * Tests that the engine matches the Java version when loaded from the
+	 * multi-release jar.
+	 */
+	@Test(groups = "unit")
+	public void testEngine()
+	{
+		final boolean fromJar = MemberReader.class.getProtectionDomain().getCodeSource().getLocation().getPath().endsWith(".jar");
+		final String version = System.getProperty("java.specification.version");
+		final boolean java17 = !version.startsWith("1.") && Integer.parseInt(version) >= 17;
+
+		assertEquals(MemberReader.engine(), fromJar && java17 ? "method handles" : "reflection", "Engine should depend on the jar layer in use.");
+	}
+
+	/**
+	 * Tests reading primitive fields and read methods as bits.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testReadBits() throws Exception
+	{
+		final Primitives bean = new Primitives();
+
+		for(final Field field : Primitives.class.getDeclaredFields())
+		{
+			final String name = field.getName();
+			final MemberReader fieldReader = new MemberReader(field);
+			final MemberReader methodReader = new MemberReader(Primitives.class.getMethod("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1)));
+			final long expected = PrimitiveValues.toBits(field.get(bean));
+
+			assertEquals(fieldReader.readBits(bean), expected, "Field " + name + " should be read as the bits of its value.");
+			assertEquals(methodReader.readBits(bean), expected, "Getter of " + name + " should be read as the bits of its value.");
+		}
+	}
+
+	/**
+	 * Tests that a <code>null</code> or wrongly typed bean fails as it does
+	 * with reflection, for fields and read methods.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testInvalidBean() throws Exception
+	{
+		final Field field = Bean.class.getDeclaredField("hidden");
+		field.setAccessible(true);
+		final MemberReader[] readers = new MemberReader[] {new MemberReader(field), new MemberReader(Bean.class.getMethod("getBroken")), new MemberReader(Primitives.class.getDeclaredField("intValue")), new MemberReader(Primitives.class.getMethod("getIntValue"))};
+
+		for(int i = 0; i < readers.length; i++)
+		{
+			final MemberReader reader = readers[i];
+
+			// Only the members of Primitives are read as bits
+			for(final boolean bits : i < 2 ? new boolean[] {false} : new boolean[] {false, true})
+			{
+				try
+				{
+					read(reader, null, bits);
+					fail("Null bean should be rejected.");
+				}
+				catch(final NullPointerException e)
+				{
+					// Expected
+				}
+
+				try
+				{
+					read(reader, "wrong type", bits);
+					fail("Wrongly typed bean should be rejected.");
+				}
+				catch(final IllegalArgumentException e)
+				{
+					// Expected
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tests reading fields and calling read methods.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testRead() throws Exception
+	{
+		final Field field = Bean.class.getDeclaredField("hidden");
+		field.setAccessible(true);
+
+		assertEquals(new MemberReader(field).read(new Bean()), "hidden", "Accessible private field should be read.");
+		assertEquals(new MemberReader(Bean.class.getMethod("getCount")).read(new Bean()), Integer.valueOf(3), "Primitive result should be boxed.");
+
+		try
+		{
+			new MemberReader(Bean.class.getMethod("getBroken")).read(new Bean());
+			fail("Getter exception should be thrown.");
+		}
+		catch(final InvocationTargetException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalStateException, "Getter exception should be wrapped as by reflection.");
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.and;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.eq;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.in;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.isNull;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.not;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.or;
+import static com.stephenduncanjr.easymock.matcher.PropertyPredicates.range;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the PredicateBeanProperty matcher.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class PredicateBeanPropertyTest
+{
+	/**
+	 * Bean counting the reads of its properties.
+	 */
+	public static class Account
+	{
+		/** Number of getter calls. */
+		int reads;
+
+		/**
+		 * @return a constant.
+		 */
+		public double getBalance()
+		{
+			this.reads++;
+			return 12.5;
+		}
+
+		/**
+		 * @return negative zero, boxed.
+		 */
+		public Double getBoxedOffset()
+		{
+			this.reads++;
+			return Double.valueOf(-0.0);
+		}
+
+		/**
+		 * @return a constant.
+		 */
+		public char getGrade()
+		{
+			this.reads++;
+			return 'B';
+		}
+
+		/**
+		 * @return a constant.
+		 */
+		public long getId()
+		{
+			this.reads++;
+			return 42;
+		}
+
+		/**
+		 * @return a constant.
+		 */
+		public BigDecimal getLimit()
+		{
+			this.reads++;
+			return new BigDecimal("1E+2");
+		}
+
+		/**
+		 * @return nothing.
+		 */
+		public String getNote()
+		{
+			this.reads++;
+			return null;
+		}
+
+		/**
+		 * @return negative zero.
+		 */
+		public double getOffset()
+		{
+			this.reads++;
+			return -0.0;
+		}
+
+		/**
+		 * @return a constant.
+		 */
+		public int[] getScores()
+		{
+			this.reads++;
+			return new int[] {1, 2};
+		}
+
+		/**
+		 * @return a constant.
+		 */
+		public String getStatus()
+		{
+			this.reads++;
+			return "OPEN";
+		}
+	}
+
+	/**
+	 * Tests that ranges compare numbers of different types exactly, and
+	 * characters with numeric bounds by their code.
+	 */
+	@Test(groups = "unit")
+	public void testExactRanges()
+	{
+		final Account account = new Account();
+
+		assertTrue(new PredicateBeanProperty(range("id", BigInteger.valueOf(42), new BigDecimal("42.0"))).matches(account), "Primitive within big number bounds should match.");
+		assertTrue(new PredicateBeanProperty(range("balance", new BigDecimal("12.5"), null)).matches(account), "Floating point at a decimal bound should match.");
+		assertFalse(new PredicateBeanProperty(range("balance", null, new BigDecimal("12.4999999999999999999"))).matches(account), "Floating point above a decimal bound a double rounds to it should not match.");
+		assertTrue(new PredicateBeanProperty(range("limit", new BigDecimal("100"), new BigDecimal("100.00"))).matches(account), "Decimals of different scales should compare by value.");
+		assertTrue(new PredicateBeanProperty(range("grade", Integer.valueOf('A'), Integer.valueOf('B'))).matches(account), "Character within numeric bounds should match.");
+		assertFalse(new PredicateBeanProperty(range("grade", Double.valueOf(66.5), null)).matches(account), "Character below a numeric bound should not match.");
+		assertTrue(new PredicateBeanProperty(range("grade", Character.valueOf('A'), Character.valueOf('C'))).matches(account), "Character within character bounds should match.");
+
+		for(final String property : new String[] {"offset", "boxedOffset"})
+		{
+			assertTrue(new PredicateBeanProperty(range(property, Integer.valueOf(0), Integer.valueOf(10))).matches(account), "Negative zero should lie in a range from zero: " + property);
+			assertTrue(new PredicateBeanProperty(range(property, Double.valueOf(0.0), Double.valueOf(10.0))).matches(account), "Negative zero should lie in a range from positive zero: " + property);
+			assertTrue(new PredicateBeanProperty(range(property, new BigDecimal("0"), null)).matches(account), "Negative zero should lie in a range from decimal zero: " + property);
+			assertFalse(new PredicateBeanProperty(range(property, Double.valueOf(Double.NaN), null)).matches(account), "No value should lie in a range from NaN: " + property);
+		}
+	}
+
+	/**
+	 * Tests that membership compares arrays by content and rejects a
+	 * <code>null</code> array of values.
+	 */
+	@Test(groups = "unit")
+	public void testMembership()
+	{
+		final Account account = new Account();
+
+		assertTrue(new PredicateBeanProperty(in("scores", new int[] {1, 3}, new int[] {1, 2})).matches(account), "Array with equal content should match.");
+		assertFalse(new PredicateBeanProperty(in("scores", new int[] {1, 3})).matches(account), "Array with other content should not match.");
+
+		try
+		{
+			in("status", (Object[]) null);
+			fail("Null values should be rejected.");
+		}
+		catch(final IllegalArgumentException e)
+		{
+			// Expected
+		}
+	}
+
+	/**
+	 * Tests the predicates.
+	 */
+	@Test(groups = "unit")
+	public void testPredicates()
+	{
+		final Account account = new Account();
+
+		assertTrue(new PredicateBeanProperty(eq("id", Long.valueOf(42))).matches(account), "Equal primitive should match.");
+		assertFalse(new PredicateBeanProperty(eq("id", Integer.valueOf(42))).matches(account), "Wrapper of another type should not match.");
+		assertTrue(new PredicateBeanProperty(range("id", Integer.valueOf(40), Long.valueOf(42))).matches(account), "Primitive within integer bounds should match.");
+		assertFalse(new PredicateBeanProperty(range("id", null, Integer.valueOf(41))).matches(account), "Primitive above bound should not match.");
+		assertTrue(new PredicateBeanProperty(range("balance", Integer.valueOf(12), Double.valueOf(12.5))).matches(account), "Floating point within bounds should match.");
+		assertTrue(new PredicateBeanProperty(range("status", "A", "P")).matches(account), "Comparable within bounds should match.");
+		assertFalse(new PredicateBeanProperty(range("status", Integer.valueOf(1), null)).matches(account), "Incomparable bound should not match.");
+		assertFalse(new PredicateBeanProperty(range("note", "A", null)).matches(account), "Null should not be in a range.");
+		assertTrue(new PredicateBeanProperty(in("status", "OPEN", "CLOSED")).matches(account), "Member should match.");
+		assertTrue(new PredicateBeanProperty(and(isNull("note"), not(isNull("status")))).matches(account), "Null checks should match.");
+		assertFalse(new PredicateBeanProperty(isNull("missing")).matches(account), "Predicate on a missing property should not hold.");
+		assertTrue(new PredicateBeanProperty(not(isNull("missing"))).matches(account), "Negated predicate on a missing property should hold.");
+		assertFalse(new PredicateBeanProperty(or(eq("status", "CLOSED"), eq("missing", "x"))).matches(account), "Missing property should not match in an or.");
+		assertTrue(new PredicateBeanProperty(or(isNull("missing"), eq("id", Long.valueOf(42)))).matches(account), "Or should hold when a cheaper branch reads a missing property.");
+		assertTrue(new PredicateBeanProperty(or(eq("id", Long.valueOf(42)), range("missing", Integer.valueOf(1), Integer.valueOf(2)))).matches(account), "Or should hold when a costlier branch reads a missing property.");
+		assertTrue(new PredicateBeanProperty(or(eq("status", "OPEN"), eq("missing", "x"))).matches(account), "Or decided before reading a missing property should match.");
+		assertFalse(new PredicateBeanProperty(eq("id", Long.valueOf(42))).matches(null), "Null should not match.");
+	}
+
+	/**
+	 * Tests that the plan reads each property once, cheapest predicates
+	 * first.
+	 */
+	@Test(groups = "unit")
+	public void testPlan()
+	{
+		final Account account = new Account();
+		final PredicateBeanProperty matcher = new PredicateBeanProperty(and(in("status", "OPEN", "CLOSED"), range("id", Integer.valueOf(0), Integer.valueOf(100)), eq("id", Long.valueOf(42)), not(eq("status", "CLOSED"))));
+
+		assertTrue(matcher.matches(account), "Satisfied predicate should match.");
+		assertEquals(account.reads, 2, "Each property should be read once.");
+
+		account.reads = 0;
+		assertFalse(new PredicateBeanProperty(and(range("id", Integer.valueOf(0), Integer.valueOf(10)), isNull("status"))).matches(account), "Unsatisfied predicate should not match.");
+		assertEquals(account.reads, 1, "Cheaper null check should be evaluated first and decide the match.");
+
+		final StringBuffer buffer = new StringBuffer();
+		matcher.appendTo(buffer);
+		assertEquals(buffer.toString(), "propThat(and(in(status, [OPEN, CLOSED]), range(id, 0, 100), eq(id, 42), not(eq(status, CLOSED))))", "Predicate should be described as given.");
+	}
+}
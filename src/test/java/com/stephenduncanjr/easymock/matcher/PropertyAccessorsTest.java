@@ -0,0 +1,164 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.beanutils.BasicDynaClass;
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.DynaProperty;
+import org.testng.annotations.Test;
+
+/**
+ * Tests PropertyAccessors.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class PropertyAccessorsTest
+{
+	/**
+	 * Bean for reading.
+	 */
+	public static class Bean
+	{
+		/**
+		 * @return Value of property name.
+		 */
+		public String getName()
+		{
+			return "name";
+		}
+
+		/**
+		 * @param value
+		 */
+		public void setWriteOnly(@SuppressWarnings("unused")
+		final String value)
+		{
+			// Write-only property
+		}
+	}
+
+	/**
+	 * Bean only read by the concurrent resolution test.
+	 */
+	public static class ConcurrentBean extends Bean
+	{
+		// Fresh class for the accessor cache
+	}
+
+	/**
+	 * Tests that threads resolving the same property at once all end up with
+	 * the cached accessor.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testConcurrentResolution() throws Exception
+	{
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try
+		{
+			final List<Future<PropertyAccessor>> resolved = new ArrayList<Future<PropertyAccessor>>();
+
+			for(int i = 0; i < threads; i++)
+			{
+				resolved.add(executor.submit(new Callable<PropertyAccessor>()
+				{
+					public PropertyAccessor call() throws Exception
+					{
+						start.await();
+						return PropertyAccessors.forProperty(ConcurrentBean.class, "name");
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for(final Future<PropertyAccessor> accessor : resolved)
+			{
+				assertSame(accessor.get(), PropertyAccessors.forProperty(ConcurrentBean.class, "name"), "All threads should get the cached accessor.");
+				assertEquals(accessor.get().getValue(new ConcurrentBean()), "name", "Getter value should be read.");
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Tests reading dyna bean properties.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testDynaBean() throws Exception
+	{
+		final DynaBean bean = new BasicDynaClass("Payload", null, new DynaProperty[] {new DynaProperty("name", String.class)}).newInstance();
+		bean.set("name", "value");
+
+		assertEquals(PropertyAccessors.forProperty(bean.getClass(), "name").getValue(bean), "value", "Dyna property should be read.");
+		assertSame(PropertyAccessors.forProperty(bean.getClass(), "missing").getValue(bean), PropertyAccessors.NO_SUCH_PROPERTY, "Undeclared dyna property should not be readable.");
+	}
+
+	/**
+	 * Tests resolving and caching accessors.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testForProperty() throws Exception
+	{
+		final PropertyAccessor accessor = PropertyAccessors.forProperty(Bean.class, "name");
+
+		assertEquals(accessor.getValue(new Bean()), "name", "Getter value should be read.");
+		assertSame(PropertyAccessors.forProperty(Bean.class, "name"), accessor, "Accessor should be cached.");
+		assertSame(PropertyAccessors.forProperty(Bean.class, "missing").getValue(new Bean()), PropertyAccessors.NO_SUCH_PROPERTY, "Missing property should not be readable.");
+		assertSame(PropertyAccessors.forProperty(Bean.class, "writeOnly").getValue(new Bean()), PropertyAccessors.NO_SUCH_PROPERTY, "Write-only property should not be readable.");
+		assertSame(PropertyAccessors.forProperty(Bean.class, null).getValue(new Bean()), PropertyAccessors.NO_SUCH_PROPERTY, "Null property should not be readable.");
+	}
+
+	/**
+	 * Tests reading map entries.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testMap() throws Exception
+	{
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("name", "value");
+
+		assertEquals(PropertyAccessors.forProperty(map.getClass(), "name").getValue(map), "value", "Map entry should be read.");
+		assertNull(PropertyAccessors.forProperty(map.getClass(), "missing").getValue(map), "Missing map entry should read as null.");
+	}
+}
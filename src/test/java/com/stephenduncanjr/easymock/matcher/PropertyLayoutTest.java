@@ -0,0 +1,105 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests PropertyLayout.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class PropertyLayoutTest
+{
+	/**
+	 * Bean for reading.
+	 */
+	public static class Bean
+	{
+		/**
+		 * @return Value of property first.
+		 */
+		public String getFirst()
+		{
+			return "first";
+		}
+
+		/**
+		 * @return Value of property second.
+		 */
+		public int getSecond()
+		{
+			return 2;
+		}
+
+		/**
+		 * @param value
+		 */
+		public void setWriteOnly(@SuppressWarnings("unused")
+		final String value)
+		{
+			// Write-only property
+		}
+	}
+
+	/**
+	 * Tests that layouts are shared for equal ignore sets.
+	 */
+	@Test(groups = "unit")
+	public void testCaching()
+	{
+		final List<String> ignored = new LinkedList<String>();
+		ignored.add("second");
+		ignored.add("first");
+
+		assertSame(PropertyLayout.forClass(Bean.class, Arrays.asList("first", "second")), PropertyLayout.forClass(Bean.class, ignored), "Layout should be shared.");
+
+		final PropertyLayout layout = PropertyLayout.forClass(Bean.class, Collections.<String> emptyList());
+		assertSame(layout.getPropertyPaths(), layout.getPropertyPaths(), "Property paths should be shared.");
+		assertTrue(new BeanProperty(layout, new Bean(), false).matches(new Bean()), "Matcher on a shared layout should match.");
+	}
+
+	/**
+	 * Tests reading values.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testReadValues() throws Exception
+	{
+		final Map<String, Object> values = PropertyLayout.forClass(Bean.class, Collections.<String> emptyList()).readValues(new Bean());
+
+		assertEquals(values.size(), 2, "Only readable properties other than class should be read.");
+		assertEquals(values.get("first"), "first", "Property value should be read.");
+		assertEquals(values.get("second"), Integer.valueOf(2), "Property value should be read.");
+
+		final Map<String, Object> filtered = PropertyLayout.forClass(Bean.class, Arrays.asList("first")).readValues(new Bean());
+
+		assertEquals(filtered.size(), 1, "Ignored property should not be read.");
+		assertFalse(filtered.containsKey("first"), "Ignored property should not be read.");
+	}
+}
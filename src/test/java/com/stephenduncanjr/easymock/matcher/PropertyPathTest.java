@@ -0,0 +1,195 @@
+/*
+ * Copyright 2006 Stephen Duncan Jr
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.stephenduncanjr.easymock.matcher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.testng.annotations.Test;
+
+/**
+ * Tests PropertyPath.
+ * 
+ * @author stephen.duncan (Stephen C. Duncan Jr.
+ *         &lt;stephen.duncan@gmail.com&gt;)
+ * @since 1.2
+ */
+public class PropertyPathTest
+{
+	/**
+	 * Order bean.
+	 */
+	public static class Order
+	{
+		/** Attributes. */
+		private final Map<String, String> attrs = new HashMap<String, String>();
+
+		/** Lines. */
+		private final List<Line> lines = Arrays.asList(new Line("a"), new Line("b"));
+
+		/** Parent order. */
+		private final Order parent;
+
+		/**
+		 * @param parent
+		 */
+		Order(final Order parent)
+		{
+			this.parent = parent;
+			this.attrs.put("region", "east");
+			this.attrs.put("a.b", "dotted");
+		}
+
+		/**
+		 * @return Value of property attrs.
+		 */
+		public Map<String, String> getAttrs()
+		{
+			return this.attrs;
+		}
+
+		/**
+		 * @return Value of property lines.
+		 */
+		public List<Line> getLines()
+		{
+			return this.lines;
+		}
+
+		/**
+		 * @return Value of property lineArray.
+		 */
+		public Line[] getLineArray()
+		{
+			return this.lines.toArray(new Line[this.lines.size()]);
+		}
+
+		/**
+		 * @param key
+		 * @return Value of mapped property option.
+		 */
+		public String getOption(final String key)
+		{
+			return "option-" + key;
+		}
+
+		/**
+		 * @return Value of property parent.
+		 */
+		public Order getParent()
+		{
+			return this.parent;
+		}
+	}
+
+	/**
+	 * Order line bean.
+	 */
+	public static class Line
+	{
+		/** SKU. */
+		private final String sku;
+
+		/**
+		 * @param sku
+		 */
+		Line(final String sku)
+		{
+			this.sku = sku;
+		}
+
+		/**
+		 * @return Value of property sku.
+		 */
+		public String getSku()
+		{
+			return this.sku;
+		}
+	}
+
+	/**
+	 * Tests that paths read the same values as commons-beanutils.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testSameAsPropertyUtils() throws Exception
+	{
+		final Order order = new Order(new Order(null));
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("order", order);
+
+		for(final String expression : new String[] {"lines[1].sku", "lineArray[0].sku", "parent.lines[0].sku", "attrs(region)", "attrs(a.b)", "option(x)", "parent.option(y)"})
+		{
+			final PropertyPath path = new PropertyPath(expression);
+
+			assertEquals(path.getValue(order), PropertyUtils.getProperty(order, expression), expression + " should be read as by PropertyUtils.");
+			assertEquals(path.getValue(order), PropertyUtils.getProperty(order, expression), expression + " should be read again from the cache.");
+		}
+
+		assertEquals(new PropertyPath("order.lines[0].sku").getValue(map), "a", "Path should be read through a map.");
+	}
+
+	/**
+	 * Tests paths that cannot be read.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testUnreadable() throws Exception
+	{
+		final Order order = new Order(null);
+
+		for(final String expression : new String[] {"parent.lines", "missing", "lines[x]", "lines[", "missing(x)", "missing[0]", null})
+		{
+			assertSame(new PropertyPath(expression).getValue(order), PropertyAccessors.NO_SUCH_PROPERTY, expression + " should not be readable.");
+		}
+	}
+
+	/**
+	 * Tests a changing class between reads of the same path.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(groups = "unit")
+	public void testChangingClass() throws Exception
+	{
+		final PropertyPath path = new PropertyPath("parent.sku");
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("parent", new Line("c"));
+
+		final Order order = new Order(null)
+		{
+			@Override
+			public Order getParent()
+			{
+				return null;
+			}
+		};
+
+		assertEquals(path.getValue(map), "c", "Map path should be read.");
+		assertSame(path.getValue(order), PropertyAccessors.NO_SUCH_PROPERTY, "Null intermediate value should not be readable.");
+		assertEquals(path.getValue(map), "c", "Map path should be read again.");
+		assertTrue(new BeanProperty("parent.sku", "c").matches(map), "Nested property should match.");
+		assertFalse(new BeanProperty("parent.sku", "c").matches(order), "Null intermediate value should not match.");
+	}
+}